@@ -0,0 +1,39 @@
+package com.flooid.benchmarks;
+
+import com.flooid.engine.WebDriverFactory;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Shared setup for the benchmarks: a headless local browser opened on the contact form fixture.
+ * <p>
+ * The configuration is read once, when the framework classes are first used, so the fixture URL and the browser
+ * settings are set as system properties before any of them is touched.
+ */
+public abstract class BrowserState {
+
+    protected FixtureServer fixtureServer;
+    protected WebDriver driver;
+
+    protected void startBrowser() {
+        fixtureServer = new FixtureServer().start();
+        System.setProperty("application.contact.page.url", fixtureServer.getContactPageUrl());
+        System.setProperty("execution", "local");
+        System.setProperty("browser.headless", "true");
+        System.setProperty("webdriver.session.mode", "per-scenario");
+        driver = WebDriverFactory.getInstance().getDriver("benchmark");
+        driver.get(fixtureServer.getContactPageUrl());
+    }
+
+    protected void stopBrowser() {
+        try {
+            if (driver != null) {
+                driver.quit();
+            }
+        } catch (WebDriverException e) {
+            // The browser goes away with the forked benchmark JVM anyway
+        } finally {
+            fixtureServer.stop();
+        }
+    }
+}
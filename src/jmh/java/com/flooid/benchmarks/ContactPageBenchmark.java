@@ -0,0 +1,66 @@
+package com.flooid.benchmarks;
+
+import com.flooid.pages.ContactPage;
+import com.flooid.pages.NewPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@link ContactPage} flows used by the feature files, against the contact form fixture.
+ * The form is reset in place before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContactPageBenchmark extends BrowserState {
+
+    private ContactPage contactPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        startBrowser();
+        contactPage = new ContactPage(driver);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetForm() {
+        if (!contactPage.resetForm()) {
+            contactPage = new NewPage(driver).navigateToContactUsPage();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stopBrowser();
+    }
+
+    @Benchmark
+    public String enterInvalidEmailAddressAndReadError() {
+        return contactPage.enterEmailAddress("user@example..com").readErrorMessageDisplayedForInvalidEmailAddress();
+    }
+
+    @Benchmark
+    public boolean enterValidEmailAddressAndCheckNoError() {
+        return contactPage.enterEmailAddress("user@example.com").isErrorMessageNotDisplayed();
+    }
+
+    @Benchmark
+    public ContactPage navigateToContactPage() {
+        return new NewPage(driver).navigateToContactUsPage();
+    }
+}
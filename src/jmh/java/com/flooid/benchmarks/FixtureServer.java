@@ -0,0 +1,68 @@
+package com.flooid.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Embedded HTTP server serving a static copy of the contact form, so benchmarks measure the framework and the
+ * browser rather than the network and the live site.
+ */
+public class FixtureServer {
+
+    public static final String CONTACT_PAGE_PATH = "/uk/contact-us/";
+    private static final String CONTACT_PAGE_RESOURCE = "fixtures/contact-us.html";
+
+    private final HttpServer server;
+    private final byte[] contactPage;
+
+    public FixtureServer() {
+        try (InputStream inputStream = FixtureServer.class.getClassLoader().getResourceAsStream(CONTACT_PAGE_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Fixture not found on the classpath: " + CONTACT_PAGE_RESOURCE);
+            }
+            contactPage = inputStream.readAllBytes();
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the fixture server", e);
+        }
+        server.createContext("/", this::handle);
+    }
+
+    public FixtureServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * @return The URL of the contact page fixture, such as {@code http://127.0.0.1:49152/uk/contact-us/}.
+     */
+    public String getContactPageUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTACT_PAGE_PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!CONTACT_PAGE_PATH.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, contactPage.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(contactPage);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.flooid.benchmarks;
+
+import com.flooid.utils.PageOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Keys;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the main {@link PageOperation} operations against the contact form fixture.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageOperationBenchmark {
+
+    private static final By EMAIL_FIELD = By.name("yourEmail");
+    private static final By EMAIL_ERROR_MESSAGE = By.xpath("//div[contains(@class,'email-container')]//div[@role='alert']//div");
+    private static final By HIDDEN_CONFIRMATION = By.id("submit-confirmation");
+    private static final String CLEAR_EMAIL_SCRIPT = "document.getElementsByName('yourEmail')[0].value = '';";
+
+    /**
+     * Contact form with an empty email field before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class EmptyForm extends BrowserState {
+        PageOperation pageOperation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            startBrowser();
+            pageOperation = new PageOperation(driver);
+        }
+
+        @Setup(Level.Invocation)
+        public void clearEmailField() {
+            pageOperation.executeScript(CLEAR_EMAIL_SCRIPT);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stopBrowser();
+        }
+    }
+
+    /**
+     * Contact form showing the invalid email address message.
+     */
+    @State(Scope.Thread)
+    public static class InvalidEmailEntered extends BrowserState {
+        PageOperation pageOperation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            startBrowser();
+            pageOperation = new PageOperation(driver);
+            pageOperation.type(EMAIL_FIELD, "invalid-email").type(EMAIL_FIELD, Keys.TAB);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stopBrowser();
+        }
+    }
+
+    @Benchmark
+    public PageOperation type(EmptyForm form) {
+        return form.pageOperation.type(EMAIL_FIELD, "user@example.com");
+    }
+
+    @Benchmark
+    public String getText(InvalidEmailEntered form) {
+        return form.pageOperation.getText(EMAIL_ERROR_MESSAGE);
+    }
+
+    @Benchmark
+    public boolean isDisplayed(InvalidEmailEntered form) {
+        return form.pageOperation.isDisplayed(EMAIL_ERROR_MESSAGE);
+    }
+
+    @Benchmark
+    public boolean isNotDisplayed(InvalidEmailEntered form) {
+        return form.pageOperation.isNotDisplayed(HIDDEN_CONFIRMATION);
+    }
+}
@@ -0,0 +1,363 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.bidi.browsingcontext.BrowsingContext;
+import org.openqa.selenium.bidi.browsingcontext.CreateContextParameters;
+import org.openqa.selenium.bidi.module.Browser;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.DefaultDecorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs several scenarios in one browser process. Every scenario gets its own top-level window in a browser shared
+ * with up to {@code contextsPerBrowser - 1} other scenarios; a new browser is only started when every browser is
+ * full or retired. With user context isolation, each window also lives in its own BiDi user context, so cookies and storage
+ * are not shared between scenarios; browsers without BiDi support fall back to plain windows.
+ * <p>
+ * Scenarios see their window through a driver view: every command of the view, and of the elements, navigation and
+ * options it hands out, first switches the shared session to the view's window. Commands of one browser are
+ * therefore serialized, and a frame selected by a scenario is lost when another scenario of the same browser runs a
+ * command in between. {@code executeAsyncScript} would hold the whole browser for the duration of the script and is
+ * rejected with an {@link UnsupportedCommandException}. Commands wait for their browser on a {@link ReentrantLock}
+ * rather than a monitor, so scenarios running on virtual threads do not pin their carrier thread. Quitting a view
+ * hands it to the quit handler, which releases its context. Started browsers and window switches are counted in
+ * {@link RunMetrics} under {@code multiplex.*}.
+ */
+public class BrowserMultiplexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserMultiplexer.class);
+
+    private final Supplier<WebDriver> browserSupplier;
+    private final Consumer<WebDriver> browserDisposer;
+    private final Consumer<WebDriver> contextSetup;
+    private final Predicate<WebDriver> retirementCheck;
+    private final Consumer<WebDriver> quitHandler;
+    private final int contextsPerBrowser;
+    private final boolean userContexts;
+    private final List<Host> hosts = new ArrayList<>();
+    private final Map<WebDriver, BrowserContext> contexts = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a multiplexer. Browsers are started on demand.
+     *
+     * @param browserSupplier    Starts a new, fully configured browser session.
+     * @param browserDisposer    Quits a browser session once it hosts no scenario anymore.
+     * @param contextSetup       Prepares the driver view of a new context, e.g. sizes its window.
+     * @param retirementCheck    Tells whether a browser should take no new contexts and be quit once its contexts
+     *                           are closed, e.g. when it uses too much memory.
+     * @param quitHandler        Hands back a driver view its scenario quit. It must end up in {@link #release(WebDriver)},
+     *                           typically through the code that also releases what was acquired along with the view.
+     * @param contextsPerBrowser The maximum number of scenarios sharing one browser.
+     * @param userContexts       Whether to isolate contexts in BiDi user contexts where the browser supports them.
+     */
+    public BrowserMultiplexer(Supplier<WebDriver> browserSupplier, Consumer<WebDriver> browserDisposer,
+                              Consumer<WebDriver> contextSetup, Predicate<WebDriver> retirementCheck,
+                              Consumer<WebDriver> quitHandler, int contextsPerBrowser, boolean userContexts) {
+        if (contextsPerBrowser < 1) {
+            throw new IllegalArgumentException("Contexts per browser must be at least 1 but was " + contextsPerBrowser);
+        }
+        this.browserSupplier = browserSupplier;
+        this.browserDisposer = browserDisposer;
+        this.contextSetup = contextSetup;
+        this.retirementCheck = retirementCheck;
+        this.quitHandler = quitHandler;
+        this.contextsPerBrowser = contextsPerBrowser;
+        this.userContexts = userContexts;
+    }
+
+    /**
+     * Opens a new context in a browser with room left, starting a browser when every browser is full.
+     *
+     * @return A driver view scoped to the new context, owned exclusively by the caller until {@link #release(WebDriver)}.
+     */
+    public WebDriver acquire() {
+        if (shutdown) {
+            throw new IllegalStateException("Browser multiplexer has been shut down");
+        }
+        Host host = reserveHost();
+        BrowserContext context;
+        try {
+            context = host.openContext();
+        } catch (RuntimeException e) {
+            logger.warn("Could not open a new context in a shared browser, no more scenarios will be sent to it", e);
+            host.broken = true;
+            releaseSlot(host);
+            throw e;
+        }
+        contexts.put(context.view, context);
+        contextSetup.accept(context.view);
+        return context.view;
+    }
+
+    /**
+     * Closes the context of a driver view obtained from {@link #acquire()}. The browser is quit once it hosts no
+     * context anymore and cannot take new ones.
+     *
+     * @return True if the context was closed, false if the view was already released, e.g. because its scenario quit
+     * it before handing it back.
+     */
+    public boolean release(WebDriver driver) {
+        BrowserContext context = contexts.remove(driver);
+        if (context == null) {
+            logger.debug("Driver view already released: {}", driver);
+            return false;
+        }
+        Host host = context.host;
+        try {
+            host.closeContext(context);
+        } catch (WebDriverException e) {
+            logger.warn("Could not close a context of a shared browser, no more scenarios will be sent to it", e);
+            host.broken = true;
+        } finally {
+            releaseSlot(host);
+        }
+        return true;
+    }
+
+    /**
+     * Quits every browser, whether or not scenarios still use it.
+     */
+    public void shutdown() {
+        shutdown = true;
+        List<Host> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(hosts);
+            hosts.clear();
+        }
+        remaining.forEach(host -> dispose(host.driver));
+        contexts.clear();
+    }
+
+    private Host reserveHost() {
+        synchronized (this) {
+            for (Host host : hosts) {
+                if (!host.broken && host.openContexts < contextsPerBrowser && !retirementCheck.test(host.driver)) {
+                    host.openContexts++;
+                    return host;
+                }
+            }
+        }
+        // Started outside the lock, so scenarios finding room in other browsers do not wait for it
+        Host host = new Host(browserSupplier.get());
+        synchronized (this) {
+            host.openContexts++;
+            hosts.add(host);
+            logger.info("Started a shared browser ({} running, up to {} context(s) each, {} isolation)", hosts.size(),
+                    contextsPerBrowser, host.userContexts ? "user context" : "window");
+        }
+        RunMetrics.getInstance().increment("multiplex.browsers");
+        return host;
+    }
+
+    private void releaseSlot(Host host) {
+        boolean dispose;
+        synchronized (this) {
+            host.openContexts--;
+            host.broken |= retirementCheck.test(host.driver);
+            dispose = (host.broken || shutdown) && host.openContexts == 0 && hosts.remove(host);
+        }
+        if (dispose) {
+            dispose(host.driver);
+        }
+    }
+
+    private void dispose(WebDriver driver) {
+        try {
+            browserDisposer.accept(driver);
+        } catch (WebDriverException e) {
+            logger.warn("Error quitting shared browser", e);
+        }
+    }
+
+    /**
+     * A browser shared by several contexts. Its first window is never handed out: it keeps the browser alive while no
+     * scenario runs in it.
+     */
+    private class Host {
+        private final WebDriver driver;
+        private final String anchorHandle;
+        private final boolean userContexts;
+        private final Set<String> contextHandles = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+        private String currentHandle;
+        private int openContexts;
+        private volatile boolean broken;
+
+        private Host(WebDriver driver) {
+            this.driver = driver;
+            this.anchorHandle = driver.getWindowHandle();
+            this.currentHandle = anchorHandle;
+            this.userContexts = BrowserMultiplexer.this.userContexts && supportsUserContexts(driver);
+        }
+
+        private BrowserContext openContext() {
+            lock.lock();
+            try {
+                String userContext = null;
+                String handle;
+                if (userContexts) {
+                    userContext = new Browser(driver).createUserContext();
+                    handle = new BrowsingContext(driver, new CreateContextParameters(WindowType.WINDOW).userContext(userContext)).getId();
+                } else {
+                    driver.switchTo().newWindow(WindowType.WINDOW);
+                    handle = driver.getWindowHandle();
+                    currentHandle = handle;
+                }
+                contextHandles.add(handle);
+                return new BrowserContext(this, handle, userContext);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeContext(BrowserContext context) {
+            lock.lock();
+            try {
+                contextHandles.removeAll(context.ownHandles);
+                if (context.userContext != null) {
+                    // Closes every window of the user context, including popups opened by the scenario
+                    new Browser(driver).removeUserContext(context.userContext);
+                } else {
+                    Set<String> openHandles = driver.getWindowHandles();
+                    for (String handle : context.ownHandles) {
+                        if (openHandles.contains(handle)) {
+                            driver.switchTo().window(handle).close();
+                        }
+                    }
+                }
+                driver.switchTo().window(anchorHandle);
+                currentHandle = anchorHandle;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Switches the session to a context's window unless it is already there. Callers hold the host's lock.
+         */
+        private void switchTo(String handle) {
+            if (!handle.equals(currentHandle)) {
+                driver.switchTo().window(handle);
+                currentHandle = handle;
+                RunMetrics.getInstance().increment("multiplex.window_switches");
+            }
+        }
+
+        private boolean supportsUserContexts(WebDriver driver) {
+            if (driver instanceof HasBiDi && ((HasBiDi) driver).maybeGetBiDi().isPresent()) {
+                return true;
+            }
+            logger.warn("The browser does not support BiDi user contexts, scenarios sharing it also share cookies and storage");
+            return false;
+        }
+    }
+
+    /**
+     * One scenario's window in a shared browser, and the driver view scoped to it.
+     */
+    private class BrowserContext extends WebDriverDecorator<WebDriver> {
+        private final Host host;
+        private final String userContext;
+        private final Set<String> ownHandles = ConcurrentHashMap.newKeySet();
+        private final WebDriver view;
+        private volatile String handle;
+
+        private BrowserContext(Host host, String handle, String userContext) {
+            this.host = host;
+            this.handle = handle;
+            this.userContext = userContext;
+            this.ownHandles.add(handle);
+            this.view = decorate(host.driver);
+        }
+
+        /**
+         * Views of one browser decorate the same driver, which would make them equal; each view is only equal to
+         * itself, so it can key per-scenario state.
+         */
+        @Override
+        public Decorated<WebDriver> createDecorated(WebDriver driver) {
+            return new DefaultDecorated<>(driver, this) {
+                @Override
+                public boolean equals(Object other) {
+                    return other == this || other == view;
+                }
+
+                @Override
+                public int hashCode() {
+                    return System.identityHashCode(this);
+                }
+
+                @Override
+                public String toString() {
+                    return "BrowserContext(" + handle + ") of " + driver;
+                }
+            };
+        }
+
+        @Override
+        public Object call(Decorated<?> target, Method method, Object[] args) throws Throwable {
+            boolean onDriver = target.getOriginal() == host.driver;
+            String name = method.getName();
+            if (onDriver) {
+                switch (name) {
+                    case "quit":
+                        quitHandler.accept(view);
+                        return null;
+                    case "getWindowHandle":
+                        return handle;
+                    case "executeAsyncScript":
+                        throw new UnsupportedCommandException("executeAsyncScript would block every scenario of a shared browser");
+                    default:
+                        break;
+                }
+            }
+            host.lock.lock();
+            try {
+                host.switchTo(handle);
+                Object result = super.call(target, method, args);
+                if (target.getOriginal() instanceof WebDriver.TargetLocator && (name.equals("window") || name.equals("newWindow"))) {
+                    handle = host.driver.getWindowHandle();
+                    host.currentHandle = handle;
+                    ownHandles.add(handle);
+                    host.contextHandles.add(handle);
+                } else if (onDriver && name.equals("getWindowHandles")) {
+                    return ownWindowHandles((Set<?>) result);
+                }
+                return result;
+            } finally {
+                host.lock.unlock();
+            }
+        }
+
+        /**
+         * Hides the windows of other scenarios and the anchor window from the view's window handles.
+         */
+        private Set<String> ownWindowHandles(Set<?> handles) {
+            return handles.stream()
+                    .map(String.class::cast)
+                    .filter(other -> ownHandles.contains(other)
+                            || !host.contextHandles.contains(other) && !other.equals(host.anchorHandle))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.AbstractDriverOptions;
+import org.openqa.selenium.safari.SafariOptions;
+
+import java.nio.file.Path;
+
+/**
+ * Browser options built once from configuration by {@link BrowserProfileRegistry}. The options are never handed out
+ * directly: every session gets its own copy, optionally pointed at a private user data directory.
+ */
+public class BrowserProfile {
+
+    private final String browserName;
+    private final AbstractDriverOptions<?> options;
+    private final Dimension viewport;
+    private final boolean sizesWindowAtStartup;
+    private final Path userDataTemplate;
+
+    BrowserProfile(String browserName, AbstractDriverOptions<?> options, Dimension viewport,
+                   boolean sizesWindowAtStartup, Path userDataTemplate) {
+        this.browserName = browserName;
+        this.options = options;
+        this.viewport = viewport;
+        this.sizesWindowAtStartup = sizesWindowAtStartup;
+        this.userDataTemplate = userDataTemplate;
+    }
+
+    public String getBrowserName() {
+        return browserName;
+    }
+
+    public Dimension getViewport() {
+        return viewport;
+    }
+
+    /**
+     * @return Whether the viewport is already set by the startup arguments, so the window does not need resizing.
+     */
+    public boolean sizesWindowAtStartup() {
+        return sizesWindowAtStartup;
+    }
+
+    /**
+     * @return The directory cloned into every local session as its user data directory, or null when not configured.
+     */
+    public Path getUserDataTemplate() {
+        return userDataTemplate;
+    }
+
+    /**
+     * Returns a copy of the options for one session.
+     *
+     * @param userDataDirectory The user data directory of the session, or null to let the browser create a fresh one.
+     * @return Options owned by the caller.
+     */
+    public AbstractDriverOptions<?> sessionOptions(Path userDataDirectory) {
+        AbstractDriverOptions<?> copy = copyOptions();
+        if (userDataDirectory != null) {
+            ((ChromiumOptions<?>) copy).addArguments("--user-data-dir=" + userDataDirectory.toAbsolutePath());
+        }
+        return copy;
+    }
+
+    private AbstractDriverOptions<?> copyOptions() {
+        ImmutableCapabilities none = new ImmutableCapabilities();
+        if (options instanceof ChromeOptions) {
+            return ((ChromeOptions) options).merge(none);
+        } else if (options instanceof EdgeOptions) {
+            return ((EdgeOptions) options).merge(none);
+        } else if (options instanceof FirefoxOptions) {
+            return ((FirefoxOptions) options).merge(none);
+        } else if (options instanceof SafariOptions) {
+            return ((SafariOptions) options).merge(none);
+        }
+        throw new IllegalStateException("Unsupported options type: " + options.getClass().getName());
+    }
+}
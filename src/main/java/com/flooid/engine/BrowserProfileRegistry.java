@@ -0,0 +1,165 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.AbstractDriverOptions;
+import org.openqa.selenium.safari.SafariOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds one {@link BrowserProfile} per browser from configuration, the first time the browser is used:
+ * <ul>
+ *     <li>tuned startup arguments (no first-run experience, no extensions, no background networking)</li>
+ *     <li>a fixed viewport from {@code browser.window_size}, set at startup where the browser supports it</li>
+ *     <li>the page load strategy and timeout as capabilities, so they cost no extra command per session</li>
+ *     <li>extra arguments from {@code browser.<browser>.arguments}</li>
+ *     <li>a user data template from {@code browser.<browser>.user_data_template} (Chrome and Edge)</li>
+ * </ul>
+ */
+public class BrowserProfileRegistry {
+
+    private static final BrowserProfileRegistry instance = new BrowserProfileRegistry();
+    private static final Logger logger = LoggerFactory.getLogger(BrowserProfileRegistry.class);
+    private static final List<String> CHROMIUM_ARGUMENTS = List.of(
+            "--no-first-run",
+            "--no-default-browser-check",
+            "--disable-extensions",
+            "--disable-component-extensions-with-background-pages",
+            "--disable-background-networking",
+            "--disable-default-apps",
+            "--disable-sync",
+            "--disable-features=Translate,OptimizationHints,MediaRouter",
+            "--metrics-recording-only",
+            "--password-store=basic");
+
+    private final Configuration configuration = Configuration.getInstance();
+    private final Map<String, BrowserProfile> profiles = new ConcurrentHashMap<>();
+
+    public static BrowserProfileRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param browserName One of chrome, firefox, edge or safari.
+     * @return The profile of the browser, built on first use.
+     */
+    public BrowserProfile get(String browserName) {
+        return profiles.computeIfAbsent(browserName.toLowerCase(), this::build);
+    }
+
+    private BrowserProfile build(String browserName) {
+        Dimension viewport = parseWindowSize(configuration.getProperty("browser.window_size", "1920x1080"));
+        boolean isHeadless = configuration.getBoolean("browser.headless", false);
+        List<String> arguments = split(configuration.getProperty("browser." + browserName + ".arguments", ""));
+        String template = configuration.getProperty("browser." + browserName + ".user_data_template", "").trim();
+        Path userDataTemplate = template.isEmpty() ? null : Paths.get(template);
+
+        BrowserProfile profile;
+        switch (browserName) {
+            case "chrome":
+                profile = new BrowserProfile(browserName, chromium(new ChromeOptions(), browserName, viewport, isHeadless, arguments),
+                        viewport, true, userDataTemplate);
+                break;
+            case "edge":
+                profile = new BrowserProfile(browserName, chromium(new EdgeOptions(), browserName, viewport, isHeadless, arguments),
+                        viewport, true, userDataTemplate);
+                break;
+            case "firefox":
+                profile = new BrowserProfile(browserName, firefox(viewport, isHeadless, arguments), viewport, true,
+                        ignoredTemplate(browserName, userDataTemplate));
+                break;
+            case "safari":
+                profile = new BrowserProfile(browserName, common(new SafariOptions(), browserName), viewport, false,
+                        ignoredTemplate(browserName, userDataTemplate));
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid browser type: " + browserName);
+        }
+        logger.info("Built {} browser profile with viewport {}x{}", browserName, viewport.getWidth(), viewport.getHeight());
+        return profile;
+    }
+
+    private <T extends ChromiumOptions<T>> T chromium(T options, String browserName, Dimension viewport, boolean isHeadless, List<String> arguments) {
+        options.setAcceptInsecureCerts(true);
+        options.addArguments(CHROMIUM_ARGUMENTS);
+        options.addArguments("--window-size=" + viewport.getWidth() + "," + viewport.getHeight());
+        if (isHeadless) {
+            options.addArguments("--headless");
+        }
+        options.addArguments(arguments);
+        return common(options, browserName);
+    }
+
+    private FirefoxOptions firefox(Dimension viewport, boolean isHeadless, List<String> arguments) {
+        FirefoxOptions options = new FirefoxOptions();
+        options.setAcceptInsecureCerts(true);
+        options.addPreference("browser.shell.checkDefaultBrowser", false);
+        options.addPreference("browser.startup.homepage_override.mstone", "ignore");
+        options.addPreference("datareporting.policy.dataSubmissionEnabled", false);
+        options.addPreference("toolkit.telemetry.reportingpolicy.firstRun", false);
+        options.addPreference("app.update.auto", false);
+        options.addPreference("extensions.update.enabled", false);
+        options.addArguments("--width=" + viewport.getWidth(), "--height=" + viewport.getHeight());
+        if (isHeadless) {
+            options.addArguments("--headless");
+        }
+        options.addArguments(arguments);
+        return common(options, "firefox");
+    }
+
+    private <T extends AbstractDriverOptions<?>> T common(T options, String browserName) {
+        options.setPageLoadStrategy(pageLoadStrategy(browserName));
+        options.setPageLoadTimeout(configuration.getDuration("webdriver.timeout", Duration.ofSeconds(30)));
+        return options;
+    }
+
+    /**
+     * Reads {@code webdriver.page_load_strategy.<browser>}, falling back to {@code webdriver.page_load_strategy}.
+     */
+    private PageLoadStrategy pageLoadStrategy(String browserName) {
+        String value = configuration.getProperty("webdriver.page_load_strategy." + browserName,
+                configuration.getProperty("webdriver.page_load_strategy", "normal"));
+        PageLoadStrategy strategy = PageLoadStrategy.fromString(value.trim().toLowerCase());
+        if (strategy == null) {
+            throw new IllegalArgumentException("Invalid page load strategy: " + value);
+        }
+        return strategy;
+    }
+
+    private static Path ignoredTemplate(String browserName, Path userDataTemplate) {
+        if (userDataTemplate != null) {
+            logger.warn("browser.{}.user_data_template is only supported for chrome and edge, ignoring it", browserName);
+        }
+        return null;
+    }
+
+    private static Dimension parseWindowSize(String value) {
+        String[] parts = value.trim().toLowerCase().split("x");
+        try {
+            if (parts.length == 2) {
+                return new Dimension(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid browser.window_size: expected <width>x<height> such as 1920x1080 but was '" + value + "'");
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(part -> !part.isEmpty()).collect(Collectors.toList());
+    }
+}
@@ -1,32 +1,116 @@
 package com.flooid.engine;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.util.Objects;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+/**
+ * Immutable configuration snapshot, built once at startup from these layers (highest precedence first):
+ * <ol>
+ *     <li>system properties ({@code -Dbrowser=firefox})</li>
+ *     <li>environment variables, named after the key in upper case with every other character replaced by
+ *     {@code _} ({@code BROWSER_HEADLESS} for {@code browser.headless})</li>
+ *     <li>the profile file {@code configs/configuration-<profile>.properties}, when {@code config.profile} is set</li>
+ *     <li>the defaults in {@code configs/configuration.properties}</li>
+ * </ol>
+ * Required keys, unreplaced placeholders and values of typed keys are checked when the snapshot is built, and
+ * every problem is reported at once. Typed values are parsed once and cached.
+ */
 public class Configuration {
+
+    private static final String DEFAULTS_RESOURCE = "configs/configuration.properties";
+    private static final String PROFILE_RESOURCE = "configs/configuration-%s.properties";
+    private static final String PROFILE_KEY = "config.profile";
+    private static final List<String> REQUIRED_KEYS = List.of("application.contact.page.url", "execution", "browser");
+    private static final Map<String, Function<String, ?>> TYPED_KEYS = typedKeys();
+
     private static final Configuration instance = new Configuration();
 
-    private final Properties properties;
+    private final Map<String, String> properties;
+    private final Set<String> checkedKeys;
+    private final Map<String, Object> parsedValues = new ConcurrentHashMap<>();
 
     public Configuration() {
-        properties = loadProperties();
+        this(System.getProperties(), System.getenv());
     }
 
-    private Properties loadProperties() {
-        try {
-            ClassLoader classLoader = getClass().getClassLoader();
-            File file = new File(Objects.requireNonNull(classLoader.getResource("configs/configuration.properties")).getFile());
-            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
-                Properties properties = new Properties();
-                properties.load(inputStream);
-                return properties;
+    Configuration(Properties systemProperties, Map<String, String> environment) {
+        String profile = systemProperties.getProperty(PROFILE_KEY, environment.get(environmentName(PROFILE_KEY)));
+        Map<String, String> layered = new HashMap<>(loadProperties(DEFAULTS_RESOURCE));
+        if (profile != null && !profile.isBlank()) {
+            layered.putAll(loadProperties(String.format(PROFILE_RESOURCE, profile)));
+        }
+        List<String> knownKeys = new ArrayList<>(layered.keySet());
+        knownKeys.addAll(TYPED_KEYS.keySet());
+        checkedKeys = Set.copyOf(knownKeys);
+        for (String key : knownKeys) {
+            String value = environment.get(environmentName(key));
+            if (value != null) {
+                layered.put(key, value);
+            }
+        }
+        for (String key : systemProperties.stringPropertyNames()) {
+            layered.put(key, systemProperties.getProperty(key));
+        }
+        properties = Collections.unmodifiableMap(layered);
+        validate();
+    }
+
+    private static Map<String, String> loadProperties(String resource) {
+        try (InputStream inputStream = Configuration.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Configuration file not found on the classpath: " + resource);
             }
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            Map<String, String> values = new HashMap<>();
+            properties.stringPropertyNames().forEach(key -> values.put(key, properties.getProperty(key)));
+            return values;
         } catch (IOException e) {
-            throw new RuntimeException("Configuration.properties not found at " + "configs/configuration.properties", e);
+            throw new IllegalStateException("Could not read configuration file " + resource, e);
+        }
+    }
+
+    private void validate() {
+        List<String> problems = new ArrayList<>();
+        for (String key : REQUIRED_KEYS) {
+            if (!properties.containsKey(key)) {
+                problems.add(String.format("Required property %s is not set", key));
+            }
+        }
+        // Only keys this project defines: unrelated system properties may legitimately hold placeholders
+        for (String key : checkedKeys) {
+            String value = properties.get(key);
+            if (value != null && value.startsWith("${")) {
+                problems.add(String.format("Required property %s is not replaced (value: %s)", key, value));
+            }
+        }
+        TYPED_KEYS.forEach((key, parser) -> {
+            String value = properties.get(key);
+            if (value != null && !value.startsWith("${")) {
+                try {
+                    parsedValues.put(key, parser.apply(value.trim()));
+                } catch (IllegalArgumentException e) {
+                    problems.add(String.format("Property %s has an invalid value: %s", key, e.getMessage()));
+                }
+            }
+        });
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration:\n  " + String.join("\n  ", problems));
         }
     }
 
@@ -35,27 +119,159 @@ public class Configuration {
     }
 
     /**
-     * Gets a property given a key. Check in system properties first and defaults to properties file if not found.
+     * Gets a property given a key.
+     *
+     * @throws IllegalStateException if the property is not set.
      */
     public String getProperty(String key) throws IllegalStateException {
-        String property = System.getProperty(key);
-        if (property == null) {
-            property = properties.getProperty(key);
-        }
+        String property = properties.get(key);
         if (property == null) {
             throw new IllegalStateException(String.format("Required property %s is not set", key));
-        } else if (property.startsWith("${")) {
-            throw new IllegalStateException(String.format("Required property %s is not replaced (value: %s)", key, property));
-        } else {
-            return property;
         }
+        return property;
     }
 
     public String getProperty(String key, String defaultValue) {
-        try {
-            return getProperty(key);
-        } catch (IllegalStateException e) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return getParsed(key, Boolean.class, Configuration::parseBoolean, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return getParsed(key, Integer.class, Integer::valueOf, defaultValue);
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        return getParsed(key, Double.class, Double::valueOf, defaultValue);
+    }
+
+    /**
+     * Gets a duration. Values may carry a unit ({@code 500ms}, {@code 30s}, {@code 2m}) or be ISO-8601
+     * ({@code PT30S}); bare numbers are milliseconds for keys ending in {@code _ms} and seconds otherwise.
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        return getParsed(key, Duration.class, value -> parseDuration(key, value), defaultValue);
+    }
+
+    public URL getUrl(String key) {
+        return getParsed(key, URL.class, Configuration::parseUrl, null);
+    }
+
+    /**
+     * Gets a comma-separated list of URLs.
+     *
+     * @throws IllegalStateException if the property is not set.
+     */
+    public List<URL> getUrls(String key) {
+        getProperty(key);
+        return getParsed(key, List.class, Configuration::parseUrls, List.of());
+    }
+
+    /**
+     * Parses a value once and caches it. A key read as another type than the one it was cached as, e.g. a typed key
+     * read with {@link #getDouble} instead of {@link #getInt}, is parsed again rather than cast.
+     */
+    private <T> T getParsed(String key, Class<? super T> type, Function<String, T> parser, T defaultValue) {
+        String value = properties.get(key);
+        if (value == null) {
             return defaultValue;
         }
+        try {
+            Object parsed = parsedValues.computeIfAbsent(key, k -> parser.apply(value.trim()));
+            if (type.isInstance(parsed)) {
+                @SuppressWarnings("unchecked")
+                T cached = (T) parsed;
+                return cached;
+            }
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(String.format("Property %s has an invalid value: %s", key, e.getMessage()), e);
+        }
+    }
+
+    private static Map<String, Function<String, ?>> typedKeys() {
+        Map<String, Function<String, ?>> keys = new LinkedHashMap<>();
+        keys.put("application.contact.page.url", Configuration::parseUrl);
+        keys.put("webdriver.remote_grid.url", Configuration::parseUrls);
+        keys.put("webdriver.remote_grid.max_pending_sessions", Integer::valueOf);
+        keys.put("webdriver.remote_grid.max_parallelism", Integer::valueOf);
+        keys.put("browser.headless", Configuration::parseBoolean);
+        keys.put("navigation.soft_reset", Configuration::parseBoolean);
+        keys.put("screenshots.crop_to_failed_element", Configuration::parseBoolean);
+        keys.put("webdriver.command_accounting", Configuration::parseBoolean);
+        keys.put("incremental.enabled", Configuration::parseBoolean);
+        keys.put("incremental.page_hash", Configuration::parseBoolean);
+        keys.put("governor.enabled", Configuration::parseBoolean);
+        keys.put("governor.min_parallelism", Integer::valueOf);
+        keys.put("governor.max_parallelism", Integer::valueOf);
+        keys.put("governor.min_available_memory_mb", Integer::valueOf);
+        keys.put("governor.max_browser_rss_mb", Integer::valueOf);
+        keys.put("governor.max_load_per_cpu", Double::valueOf);
+        keys.put("webdriver.pool.size", Integer::valueOf);
+        keys.put("webdriver.multiplex.contexts_per_browser", Integer::valueOf);
+        keys.put("screenshots.writer.threads", Integer::valueOf);
+        keys.put("screenshots.writer.queue_size", Integer::valueOf);
+        keys.put("screenshots.max_width", Integer::valueOf);
+        keys.put("wait.polling.multiplier", Double::valueOf);
+        keys.put("wait.polling.jitter", Double::valueOf);
+        for (String key : List.of("webdriver.timeout", "webdriver.pool.max_session_age", "webdriver.pool.lease_timeout",
+                "webdriver.remote_grid.status_interval", "webdriver.remote_grid.connection_timeout",
+                "webdriver.remote_grid.read_timeout", "governor.sample_interval",
+                "wait.polling.initial_interval_ms", "wait.polling.max_interval_ms", "wait.polling.interval_ms")) {
+            keys.put(key, value -> parseDuration(key, value));
+        }
+        return keys;
+    }
+
+    private static String environmentName(String key) {
+        return key.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "_");
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        } else if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("expected true or false but was '" + value + "'");
+    }
+
+    private static Duration parseDuration(String key, String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        try {
+            if (lower.startsWith("pt")) {
+                return Duration.parse(value);
+            } else if (lower.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2).trim()));
+            } else if (lower.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+            } else if (lower.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+            }
+            long amount = Long.parseLong(lower);
+            return key.endsWith("_ms") ? Duration.ofMillis(amount) : Duration.ofSeconds(amount);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("expected a duration such as 30, 500ms, 30s or PT30S but was '" + value + "'");
+        }
+    }
+
+    private static List<URL> parseUrls(String value) {
+        List<URL> urls = new ArrayList<>();
+        for (String url : value.split(",")) {
+            if (!url.isBlank()) {
+                urls.add(parseUrl(url.trim()));
+            }
+        }
+        return Collections.unmodifiableList(urls);
+    }
+
+    private static URL parseUrl(String value) {
+        try {
+            return new URL(value);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("expected a URL but was '" + value + "'");
+        }
     }
 }
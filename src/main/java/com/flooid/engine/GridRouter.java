@@ -0,0 +1,298 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Routes new remote sessions across one or more Selenium Grids. Every grid's {@code /status} is polled in the
+ * background; a new session goes to the healthy grid with the most free slots, ties going to the grid that answers
+ * fastest. If a grid fails to create a session it is marked unhealthy until its next successful poll, and the next
+ * grid is tried. At most {@code maxPendingSessions} sessions are being created at once, so a burst of parallel
+ * scenarios does not flood the grid queues.
+ * <p>
+ * Each grid has one HTTP client, shared by all its sessions, so connections are reused instead of opened per
+ * session. Session creation times, failures and routing decisions are counted in {@link RunMetrics} under
+ * {@code grid.*}.
+ */
+public class GridRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridRouter.class);
+    private static final Duration STATUS_TIMEOUT = Duration.ofSeconds(5);
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private final List<Grid> grids;
+    private final Semaphore pendingSessions;
+    private final ScheduledExecutorService statusPoller;
+
+    /**
+     * Creates a router and polls every grid once, so the first sessions are routed on fresh status.
+     *
+     * @param urls               The grid endpoints, such as {@code http://grid-1:4444/wd/hub}.
+     * @param clientConfig       The HTTP client settings (timeouts, proxy, credentials) of session commands.
+     * @param maxPendingSessions The maximum number of sessions being created at the same time.
+     * @param statusInterval     The delay between two polls of a grid's status.
+     */
+    public GridRouter(List<URL> urls, ClientConfig clientConfig, int maxPendingSessions, Duration statusInterval) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one Selenium Grid URL is required");
+        }
+        if (maxPendingSessions < 1) {
+            throw new IllegalArgumentException("Maximum pending sessions must be at least 1 but was " + maxPendingSessions);
+        }
+        this.grids = urls.stream().map(url -> new Grid(url, clientConfig)).collect(Collectors.toList());
+        this.pendingSessions = new Semaphore(maxPendingSessions, true);
+        this.statusPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grid-status");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollStatus();
+        statusPoller.scheduleWithFixedDelay(this::pollStatus, statusInterval.toMillis(), statusInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static GridRouter fromConfiguration(Configuration configuration) {
+        ClientConfig clientConfig = ClientConfig.defaultConfig()
+                .connectionTimeout(configuration.getDuration("webdriver.remote_grid.connection_timeout", Duration.ofSeconds(10)))
+                .readTimeout(configuration.getDuration("webdriver.remote_grid.read_timeout", Duration.ofMinutes(3)));
+        return new GridRouter(configuration.getUrls("webdriver.remote_grid.url"), clientConfig,
+                configuration.getInt("webdriver.remote_grid.max_pending_sessions", 2),
+                configuration.getDuration("webdriver.remote_grid.status_interval", Duration.ofSeconds(5)));
+    }
+
+    /**
+     * Creates a session on the best grid, falling back to the other grids if it fails.
+     *
+     * @throws IllegalStateException if no grid could create the session.
+     */
+    public WebDriver createSession(Capabilities capabilities) {
+        try {
+            pendingSessions.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to create a remote session", e);
+        }
+        try {
+            WebDriverException lastFailure = null;
+            List<Grid> ranked = rank();
+            for (int i = 0; i < ranked.size(); i++) {
+                Grid grid = ranked.get(i);
+                if (i > 0) {
+                    claim(grid);
+                }
+                boolean created = false;
+                try {
+                    WebDriver driver = grid.createSession(capabilities);
+                    created = true;
+                    return driver;
+                } catch (WebDriverException e) {
+                    logger.warn("Selenium Grid {} failed to create a session, trying the next grid", grid.name, e);
+                    grid.healthy = false;
+                    RunMetrics.getInstance().increment("grid." + grid.name + ".failures");
+                    lastFailure = e;
+                } finally {
+                    if (!created) {
+                        grid.releaseClaim();
+                    }
+                }
+            }
+            throw new IllegalStateException("No Selenium Grid could create a session", lastFailure);
+        } finally {
+            pendingSessions.release();
+        }
+    }
+
+    /**
+     * Stops polling and closes the clients of every grid. Call it once the sessions created through the router have
+     * quit, as they share the session clients.
+     */
+    public void shutdown() {
+        statusPoller.shutdownNow();
+        grids.forEach(grid -> {
+            grid.statusClient.close();
+            grid.sessionClient.close();
+        });
+    }
+
+    /**
+     * Orders the grids to try for a new session and claims a slot on the first one. Healthy grids come first, by
+     * free slots not yet claimed and then by latency; unhealthy grids are a last resort. A grid tried after the first
+     * one failed claims its slot in turn, and a grid that fails gives its claim back.
+     */
+    private synchronized List<Grid> rank() {
+        List<Grid> ranked = new ArrayList<>(grids);
+        ranked.sort(Comparator.comparing((Grid grid) -> !grid.healthy)
+                .thenComparing(Comparator.comparingInt(Grid::unclaimedSlots).reversed())
+                .thenComparingDouble(grid -> grid.latencyMillis));
+        claim(ranked.get(0));
+        return ranked;
+    }
+
+    private void claim(Grid chosen) {
+        chosen.claimedSlots.incrementAndGet();
+        logger.info("Routing new session to {} ({}, {} unclaimed slot(s), latency {}ms)", chosen.name,
+                chosen.healthy ? "healthy" : "unhealthy", chosen.unclaimedSlots() + 1, Math.round(chosen.latencyMillis));
+        RunMetrics.getInstance().increment("grid." + chosen.name + ".routed");
+        if (!chosen.healthy) {
+            RunMetrics.getInstance().increment("grid.routing.no_healthy_grid");
+        } else if (chosen.unclaimedSlots() < 0) {
+            RunMetrics.getInstance().increment("grid.routing.over_capacity");
+        }
+    }
+
+    /**
+     * Returns the number of session slots, busy or free, of the grids that reported ready on their last poll.
+     */
+    public int getCapacity() {
+        return grids.stream().filter(grid -> grid.healthy).mapToInt(grid -> grid.totalSlots).sum();
+    }
+
+    void pollStatus() {
+        for (Grid grid : grids) {
+            grid.pollStatus();
+        }
+    }
+
+    /**
+     * Counts the slots, or only the free ones, of the nodes that are up. A standalone server reports no nodes; it
+     * counts as one slot when ready.
+     */
+    @SuppressWarnings("unchecked")
+    static int countSlots(Map<String, Object> value, boolean ready, boolean freeOnly) {
+        Object nodes = value.get("nodes");
+        if (!(nodes instanceof List)) {
+            return ready ? 1 : 0;
+        }
+        int count = 0;
+        for (Map<String, Object> node : (List<Map<String, Object>>) nodes) {
+            if (!"UP".equals(node.get("availability"))) {
+                continue;
+            }
+            for (Map<String, Object> slot : (List<Map<String, Object>>) node.getOrDefault("slots", List.of())) {
+                if (!freeOnly || slot.get("session") == null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static class Grid {
+        private final String name;
+        private final ClientConfig sessionConfig;
+        private final HttpClient sessionClient;
+        private final HttpClient statusClient;
+        private final AtomicInteger claimedSlots = new AtomicInteger();
+        private volatile boolean healthy;
+        private volatile int freeSlots;
+        private volatile int totalSlots;
+        private volatile double latencyMillis = Double.MAX_VALUE;
+
+        private Grid(URL url, ClientConfig clientConfig) {
+            this.name = url.getHost() + ":" + (url.getPort() < 0 ? url.getDefaultPort() : url.getPort());
+            this.sessionConfig = clientConfig.baseUrl(url);
+            HttpClient.Factory factory = HttpClient.Factory.createDefault();
+            this.sessionClient = factory.createClient(sessionConfig);
+            this.statusClient = factory.createClient(
+                    clientConfig.baseUrl(url).connectionTimeout(STATUS_TIMEOUT).readTimeout(STATUS_TIMEOUT));
+        }
+
+        private int unclaimedSlots() {
+            return freeSlots - claimedSlots.get();
+        }
+
+        /**
+         * Gives back a slot claimed for a session that could not be created. A poll in between already dropped it.
+         */
+        private void releaseClaim() {
+            claimedSlots.updateAndGet(claimed -> Math.max(0, claimed - 1));
+        }
+
+        private WebDriver createSession(Capabilities capabilities) {
+            long start = System.nanoTime();
+            HttpCommandExecutor executor = new HttpCommandExecutor(Map.of(), sessionConfig, config -> new SharedHttpClient(sessionClient));
+            WebDriver driver = new RemoteWebDriver(executor, capabilities);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            RunMetrics.getInstance().increment("grid." + name + ".sessions");
+            RunMetrics.getInstance().add("grid." + name + ".session_create_ms", elapsedMillis);
+            logger.info("Created a session on {} in {}ms", name, elapsedMillis);
+            return driver;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void pollStatus() {
+            long start = System.nanoTime();
+            try {
+                HttpResponse response = statusClient.execute(new HttpRequest(HttpMethod.GET, "/status"));
+                double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+                latencyMillis = latencyMillis == Double.MAX_VALUE ? elapsedMillis
+                        : latencyMillis * (1 - LATENCY_SMOOTHING) + elapsedMillis * LATENCY_SMOOTHING;
+                Map<String, Object> status = new Json().toType(Contents.string(response), Map.class);
+                Map<String, Object> value = (Map<String, Object>) status.getOrDefault("value", Map.of());
+                boolean ready = response.isSuccessful() && Boolean.TRUE.equals(value.get("ready"));
+                int slots = countSlots(value, ready, true);
+                totalSlots = countSlots(value, ready, false);
+                healthy = ready;
+                freeSlots = slots;
+                claimedSlots.set(0);
+                logger.debug("Selenium Grid {}: ready={} free slots={} latency={}ms", name, ready, slots, Math.round(latencyMillis));
+            } catch (RuntimeException e) {
+                logger.warn("Could not read the status of Selenium Grid {}: {}", name, e.toString());
+                healthy = false;
+            }
+        }
+    }
+
+    /**
+     * The client handed to each session: it delegates to the grid's shared client and leaves it open when the
+     * session quits.
+     */
+    private static class SharedHttpClient implements HttpClient {
+        private final HttpClient delegate;
+
+        private SharedHttpClient(HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            return delegate.execute(request);
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return delegate.openSocket(request, listener);
+        }
+
+        @Override
+        public void close() {
+            // The shared client is closed by the router
+        }
+    }
+}
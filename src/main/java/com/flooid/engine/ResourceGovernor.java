@@ -0,0 +1,322 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Admits scenarios to a browser only while the machine has room for another one. Every
+ * {@code governor.sample_interval} it samples the load average per CPU, the available memory from
+ * {@code /proc/meminfo} and the resident memory of every local driver process and its browser processes, read from
+ * {@code /proc/<pid>/status}. The number of scenarios allowed to hold a browser at once then moves by one within
+ * {@code governor.min_parallelism} and {@code governor.max_parallelism}:
+ * <ul>
+ *     <li>down when the load per CPU exceeds {@code governor.max_load_per_cpu} or the available memory falls below
+ *     {@code governor.min_available_memory_mb}</li>
+ *     <li>up when scenarios are waiting and there is headroom for one more browser of the average size</li>
+ * </ul>
+ * A browser whose resident memory exceeds {@code governor.max_browser_rss_mb} is marked for recycling and quit
+ * instead of being reused. Every sample is appended as a row to the CSV file at {@code governor.log_path}.
+ * <p>
+ * Browser memory is only known for local browsers on Linux; remote sessions count towards admission but not towards
+ * memory, and without {@code /proc} only the load average is used.
+ * <p>
+ * Waiting scenarios park on a {@link Lock} rather than a monitor, so scenarios running on virtual threads do not
+ * pin their carrier thread while they wait.
+ */
+public class ResourceGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceGovernor.class);
+    private static final Path PROC = Paths.get("/proc");
+    private static final double HEADROOM = 0.8;
+    private static final String CSV_HEADER = "time,load_per_cpu,memory_available_mb,browsers,browser_rss_mb,"
+            + "limit,admitted,waiting,recycled,action";
+
+    private final int minParallelism;
+    private final int maxParallelism;
+    private final double maxLoadPerCpu;
+    private final long minAvailableMemoryMb;
+    private final long maxBrowserRssMb;
+    private final Path logPath;
+    private final Map<WebDriver, ProcessHandle> driverProcesses = new ConcurrentHashMap<>();
+    private final Map<WebDriver, Boolean> recycled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sampler;
+    private final Lock lock = new ReentrantLock();
+    private final Condition admissionChanged = lock.newCondition();
+    private int limit;
+    private int admitted;
+    private int waiting;
+
+    /**
+     * Creates a governor admitting {@code maxParallelism} scenarios until the first sample says otherwise.
+     *
+     * @param minParallelism       The number of scenarios always admitted, whatever the load.
+     * @param maxParallelism       The maximum number of scenarios admitted at once.
+     * @param maxLoadPerCpu        The load average per CPU above which fewer scenarios are admitted.
+     * @param minAvailableMemoryMb The available memory below which fewer scenarios are admitted.
+     * @param maxBrowserRssMb      The resident memory above which a browser is recycled, or 0 to never recycle.
+     * @param sampleInterval       The delay between two samples.
+     * @param logPath              The CSV file the samples are written to.
+     */
+    public ResourceGovernor(int minParallelism, int maxParallelism, double maxLoadPerCpu, long minAvailableMemoryMb,
+                            long maxBrowserRssMb, Duration sampleInterval, Path logPath) {
+        if (minParallelism < 1 || maxParallelism < minParallelism) {
+            throw new IllegalArgumentException("Governor parallelism bounds must satisfy 1 <= min <= max but were "
+                    + minParallelism + " and " + maxParallelism);
+        }
+        this.minParallelism = minParallelism;
+        this.maxParallelism = maxParallelism;
+        this.maxLoadPerCpu = maxLoadPerCpu;
+        this.minAvailableMemoryMb = minAvailableMemoryMb;
+        this.maxBrowserRssMb = maxBrowserRssMb;
+        this.logPath = logPath;
+        this.limit = maxParallelism;
+        writeLog(CSV_HEADER, StandardOpenOption.TRUNCATE_EXISTING);
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resource-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::sample, 0, sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static ResourceGovernor fromConfiguration(Configuration configuration) {
+        int workers = configuration.getInt("cucumber.execution.parallel.config.fixed.parallelism", 4);
+        return new ResourceGovernor(
+                configuration.getInt("governor.min_parallelism", 1),
+                configuration.getInt("governor.max_parallelism", workers),
+                configuration.getDouble("governor.max_load_per_cpu", 1.0),
+                configuration.getInt("governor.min_available_memory_mb", 1024),
+                configuration.getInt("governor.max_browser_rss_mb", 2048),
+                configuration.getDuration("governor.sample_interval", Duration.ofSeconds(5)),
+                Paths.get(configuration.getProperty("governor.log_path", "target/cucumber-reports/timings/governor.csv")));
+    }
+
+    /**
+     * Waits until another scenario may hold a browser. Every call must be paired with {@link #release()}.
+     */
+    public void admit() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (admitted >= limit) {
+                    admissionChanged.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the resource governor", e);
+            } finally {
+                waiting--;
+            }
+            admitted++;
+        } finally {
+            lock.unlock();
+        }
+        RunMetrics.getInstance().add("governor.wait_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Hands back the admission of a scenario that released its browser.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            admitted--;
+            admissionChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts sampling the memory of a new driver's processes. Only local drivers started by this JVM can be tracked.
+     *
+     * @param driver      The driver as handed out, possibly decorated.
+     * @param localDriver The local driver it was created from.
+     */
+    public void track(WebDriver driver, WebDriver localDriver) {
+        findDriverProcess(localDriver).ifPresent(process -> driverProcesses.put(driver, process));
+    }
+
+    /**
+     * Stops tracking a driver that was quit.
+     */
+    public void untrack(WebDriver driver) {
+        driverProcesses.remove(driver);
+        recycled.remove(driver);
+    }
+
+    /**
+     * Whether a driver used more memory than {@code governor.max_browser_rss_mb} and should be quit instead of reused.
+     */
+    public boolean shouldRecycle(WebDriver driver) {
+        return recycled.containsKey(driver);
+    }
+
+    public void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    private void sample() {
+        try {
+            double loadPerCpu = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage()
+                    / Runtime.getRuntime().availableProcessors();
+            OptionalLong memoryAvailableMb = readMemoryAvailableMb();
+            long browserRssMb = 0;
+            int browsers = 0;
+            for (Map.Entry<WebDriver, ProcessHandle> entry : driverProcesses.entrySet()) {
+                long rssMb = residentMemoryMb(entry.getValue());
+                browserRssMb += rssMb;
+                browsers++;
+                if (maxBrowserRssMb > 0 && rssMb > maxBrowserRssMb && recycled.putIfAbsent(entry.getKey(), Boolean.TRUE) == null) {
+                    logger.info("Browser uses {} MB, more than governor.max_browser_rss_mb={}, recycling it", rssMb, maxBrowserRssMb);
+                    RunMetrics.getInstance().increment("governor.recycled");
+                }
+            }
+            long averageBrowserMb = browsers == 0 ? 0 : browserRssMb / browsers;
+            adjust(loadPerCpu, memoryAvailableMb, averageBrowserMb, browsers, browserRssMb);
+        } catch (RuntimeException e) {
+            logger.warn("Resource governor sample failed", e);
+        }
+    }
+
+    private void adjust(double loadPerCpu, OptionalLong memoryAvailableMb, long averageBrowserMb, int browsers,
+                        long browserRssMb) {
+        boolean loadKnown = loadPerCpu >= 0;
+        boolean overloaded = loadKnown && loadPerCpu > maxLoadPerCpu
+                || memoryAvailableMb.isPresent() && memoryAvailableMb.getAsLong() < minAvailableMemoryMb;
+        boolean headroom = (!loadKnown || loadPerCpu < maxLoadPerCpu * HEADROOM)
+                && (memoryAvailableMb.isEmpty() || memoryAvailableMb.getAsLong() - averageBrowserMb > minAvailableMemoryMb);
+        String action;
+        int currentLimit;
+        int currentAdmitted;
+        int currentWaiting;
+        lock.lock();
+        try {
+            if (overloaded && limit > minParallelism) {
+                limit--;
+                action = "decrease";
+            } else if (!overloaded && headroom && waiting > 0 && limit < maxParallelism) {
+                limit++;
+                action = "increase";
+                admissionChanged.signalAll();
+            } else {
+                action = "hold";
+            }
+            currentLimit = limit;
+            currentAdmitted = admitted;
+            currentWaiting = waiting;
+        } finally {
+            lock.unlock();
+        }
+        String memory = memoryAvailableMb.isPresent() ? Long.toString(memoryAvailableMb.getAsLong()) : "";
+        if (!action.equals("hold")) {
+            logger.info("Admitting up to {} scenario(s): load per CPU {}, {} MB available, {} browser(s) using {} MB",
+                    currentLimit, String.format(Locale.ROOT, "%.2f", loadPerCpu), memory.isEmpty() ? "?" : memory,
+                    browsers, browserRssMb);
+            RunMetrics.getInstance().increment("governor.limit_" + action + "s");
+        }
+        writeLog(String.join(",", Instant.now().toString(), String.format(Locale.ROOT, "%.2f", loadPerCpu), memory,
+                Integer.toString(browsers), Long.toString(browserRssMb), Integer.toString(currentLimit),
+                Integer.toString(currentAdmitted), Integer.toString(currentWaiting),
+                Integer.toString(recycled.size()), action), StandardOpenOption.APPEND);
+    }
+
+    private void writeLog(String row, StandardOpenOption mode) {
+        try {
+            Files.createDirectories(logPath.toAbsolutePath().getParent());
+            Files.writeString(logPath, row + System.lineSeparator(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, mode);
+        } catch (IOException e) {
+            logger.warn("Could not write the resource governor log {}: {}", logPath, e.toString());
+        }
+    }
+
+    /**
+     * Finds the driver service process (chromedriver, geckodriver, msedgedriver) of a local driver: the child of this
+     * JVM started with the port the driver talks to.
+     */
+    private static Optional<ProcessHandle> findDriverProcess(WebDriver driver) {
+        if (!(driver instanceof RemoteWebDriver)) {
+            return Optional.empty();
+        }
+        CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+        if (!(executor instanceof HttpCommandExecutor)) {
+            return Optional.empty();
+        }
+        String port = Integer.toString(((HttpCommandExecutor) executor).getAddressOfRemoteServer().getPort());
+        return ProcessHandle.current().children()
+                .filter(process -> process.info().arguments().map(arguments -> listensOn(arguments, port)).orElse(false))
+                .findFirst();
+    }
+
+    private static boolean listensOn(String[] arguments, String port) {
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i].equals("--port=" + port) || arguments[i].equals("--port") && i + 1 < arguments.length
+                    && arguments[i + 1].equals(port)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sums the resident memory of a driver process and every browser process below it.
+     */
+    private static long residentMemoryMb(ProcessHandle driverProcess) {
+        long kilobytes = Stream.concat(Stream.of(driverProcess), driverProcess.descendants())
+                .mapToLong(process -> readProcKilobytes(PROC.resolve(Long.toString(process.pid())).resolve("status"), "VmRSS:"))
+                .sum();
+        return kilobytes / 1024;
+    }
+
+    private static OptionalLong readMemoryAvailableMb() {
+        Path meminfo = PROC.resolve("meminfo");
+        if (!Files.isReadable(meminfo)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(readProcKilobytes(meminfo, "MemAvailable:") / 1024);
+    }
+
+    /**
+     * Reads a {@code <name> <value> kB} line of a {@code /proc} file, or 0 if the file or line is gone.
+     */
+    private static long readProcKilobytes(Path file, String name) {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> line.startsWith(name))
+                    .map(line -> line.substring(name.length()).trim().split("\\s+")[0])
+                    .mapToLong(Long::parseLong)
+                    .findFirst()
+                    .orElse(0);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache of passed scenarios, keyed by a fingerprint of everything a scenario's result depends on:
+ * <ul>
+ *     <li>the text of its feature file and its line (the Examples row for Scenario Outlines)</li>
+ *     <li>the bytecode of the classes in {@code incremental.glue_packages} and their subpackages, by default all of
+ *     {@code com.flooid}</li>
+ *     <li>the values of {@code incremental.config_keys}</li>
+ *     <li>with {@code incremental.page_hash=true}, the content of the contact page</li>
+ * </ul>
+ * Results are only recorded with {@code incremental.enabled=true}, which also skips a scenario whose fingerprint
+ * matches its last pass. The cache is a JSON file at {@code incremental.cache.path}, written at the end of the run.
+ * Runs sharing the file, e.g. parallel shards, merge their results into it under a file lock.
+ */
+public class ResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+    private static final String DEFAULT_CACHE_PATH = "scenario-cache.json";
+    private static final String DEFAULT_GLUE_PACKAGES = "com.flooid";
+    private static final String DEFAULT_CONFIG_KEYS = "application.contact.page.url,browser,execution,browser.headless,"
+            + "browser.window_size,webdriver.page_load_strategy,network.mode,network.profile";
+
+    private static final ResultCache instance = new ResultCache(Configuration.getInstance());
+
+    private final Configuration configuration;
+    private final boolean enabled;
+    private final Path file;
+    private final Map<String, Entry> entries;
+    private final Map<String, Entry> recorded = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+    private final Map<URI, String> featureHashes = new ConcurrentHashMap<>();
+    private volatile String sharedInputsHash;
+
+    ResultCache(Configuration configuration) {
+        this.configuration = configuration;
+        this.enabled = configuration.getBoolean("incremental.enabled", false);
+        this.file = Paths.get(configuration.getProperty("incremental.cache.path", DEFAULT_CACHE_PATH));
+        this.entries = new ConcurrentHashMap<>(enabled ? read(file) : Map.of());
+    }
+
+    public static ResultCache getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns when a scenario last passed with exactly the same inputs.
+     *
+     * @param featureUri The URI of the scenario's feature file, as reported by Cucumber.
+     * @param line       The line of the scenario, or of its Examples row.
+     * @return The time of the cached pass, or empty if the scenario has to run.
+     */
+    public Optional<Instant> findCachedPass(URI featureUri, int line) {
+        Entry entry = entries.get(key(featureUri, line));
+        if (entry == null || !entry.fingerprint.equals(fingerprint(featureUri, line))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.passedAt);
+    }
+
+    /**
+     * Records the result of a scenario that ran in incremental mode: a pass is cached, any other result removes the
+     * cached pass. Without incremental mode nothing is recorded, so no fingerprint is computed.
+     */
+    public void recordResult(URI featureUri, int line, boolean passed) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(featureUri, line);
+        if (passed) {
+            Entry entry = new Entry(fingerprint(featureUri, line), Instant.now());
+            entries.put(key, entry);
+            recorded.put(key, entry);
+            removed.remove(key);
+        } else {
+            entries.remove(key);
+            recorded.remove(key);
+            removed.add(key);
+        }
+    }
+
+    /**
+     * Merges the results recorded by this run into the cache file, replacing it atomically. The file is re-read
+     * under a lock, so results written meanwhile by other runs, e.g. parallel shards, are kept.
+     */
+    public synchronized void save() {
+        if (recorded.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path lockFile = directory.resolve(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                Map<String, Entry> merged = read(file);
+                merged.keySet().removeAll(removed);
+                merged.putAll(recorded);
+                Map<String, Object> json = new TreeMap<>();
+                merged.forEach((key, entry) ->
+                        json.put(key, Map.of("fingerprint", entry.fingerprint, "passed_at", entry.passedAt.toString())));
+                Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                Files.writeString(temporary, new Json().toJson(json), StandardCharsets.UTF_8);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the result cache " + file, e);
+        }
+    }
+
+    private String fingerprint(URI featureUri, int line) {
+        String featureHash = featureHashes.computeIfAbsent(featureUri, uri -> hash(readFeature(uri)));
+        return hash(String.join("\n", featureHash, Integer.toString(line), sharedInputsHash())
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hashes the inputs shared by every scenario once per run: glue bytecode, configuration and page content.
+     */
+    private String sharedInputsHash() {
+        if (sharedInputsHash == null) {
+            synchronized (this) {
+                if (sharedInputsHash == null) {
+                    List<String> inputs = new ArrayList<>();
+                    for (String packageName : list("incremental.glue_packages", DEFAULT_GLUE_PACKAGES)) {
+                        inputs.add("glue " + packageName + " " + hashPackage(packageName));
+                    }
+                    for (String key : list("incremental.config_keys", DEFAULT_CONFIG_KEYS)) {
+                        inputs.add("config " + key + "=" + configuration.getProperty(key, ""));
+                    }
+                    if (configuration.getBoolean("incremental.page_hash", false)) {
+                        inputs.add("page " + hashPage(configuration.getProperty("application.contact.page.url")));
+                    }
+                    sharedInputsHash = hash(String.join("\n", inputs).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return sharedInputsHash;
+    }
+
+    private List<String> list(String key, String defaultValue) {
+        return Arrays.stream(configuration.getProperty(key, defaultValue).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static byte[] readFeature(URI featureUri) {
+        try {
+            if ("classpath".equals(featureUri.getScheme())) {
+                String resource = featureUri.getSchemeSpecificPart().replaceFirst("^/", "");
+                try (InputStream inputStream = ResultCache.class.getClassLoader().getResourceAsStream(resource)) {
+                    if (inputStream == null) {
+                        throw new IllegalStateException("Feature file not found on the classpath: " + featureUri);
+                    }
+                    return inputStream.readAllBytes();
+                }
+            }
+            return Files.readAllBytes(Paths.get(featureUri));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read feature file " + featureUri, e);
+        }
+    }
+
+    /**
+     * Hashes the class files of a package, in every classpath entry that contains it, in a stable order.
+     */
+    private static String hashPackage(String packageName) {
+        String packagePath = packageName.replace('.', '/');
+        List<String> classHashes = new ArrayList<>();
+        try {
+            for (URL url : Collections.list(ResultCache.class.getClassLoader().getResources(packagePath))) {
+                URI uri = url.toURI();
+                if ("jar".equals(uri.getScheme())) {
+                    FileSystem jar;
+                    try {
+                        jar = FileSystems.newFileSystem(uri, Map.of());
+                    } catch (FileSystemAlreadyExistsException e) {
+                        jar = FileSystems.getFileSystem(uri);
+                    }
+                    classHashes.addAll(hashClasses(jar.getPath(packagePath)));
+                } else {
+                    classHashes.addAll(hashClasses(Paths.get(uri)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the classes of package " + packageName, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Could not locate the classes of package " + packageName, e);
+        }
+        Collections.sort(classHashes);
+        return hash(String.join("\n", classHashes).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> hashClasses(Path directory) throws IOException {
+        List<String> classHashes = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path classFile : files.filter(path -> path.toString().endsWith(".class")).collect(Collectors.toList())) {
+                classHashes.add(directory.relativize(classFile) + " " + hash(Files.readAllBytes(classFile)));
+            }
+        }
+        return classHashes;
+    }
+
+    private static String hashPage(String url) {
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).build();
+            return hash(client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body());
+        } catch (IOException e) {
+            logger.warn("Could not fetch {} to fingerprint it, no scenario will be skipped", url, e);
+            return "unavailable " + Instant.now();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching " + url, e);
+        }
+    }
+
+    private static String key(URI featureUri, int line) {
+        return featureUri + ":" + line;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entry> read(Path file) {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (!Files.isRegularFile(file)) {
+            return entries;
+        }
+        try {
+            Map<String, Map<String, Object>> json =
+                    new Json().toType(Files.readString(file, StandardCharsets.UTF_8), Map.class);
+            json.forEach((key, value) -> entries.put(key,
+                    new Entry((String) value.get("fingerprint"), Instant.parse((String) value.get("passed_at")))));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable result cache {}", file, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final Instant passedAt;
+
+        private Entry(String fingerprint, Instant passedAt) {
+            this.fingerprint = fingerprint;
+            this.passedAt = passedAt;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.flooid.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run-wide named counters, safe to update from parallel scenarios and logged once at the end of the run.
+ */
+public class RunMetrics {
+
+    private static final RunMetrics instance = new RunMetrics();
+    private static final Logger logger = LoggerFactory.getLogger(RunMetrics.class);
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    public static RunMetrics getInstance() {
+        return instance;
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public long get(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns the current value of every counter, ordered by name.
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return snapshot;
+    }
+
+    public void logSummary() {
+        snapshot().forEach((name, value) -> logger.info("{} = {}", name, value));
+    }
+}
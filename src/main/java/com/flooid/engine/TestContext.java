@@ -5,42 +5,65 @@ import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
+/**
+ * Per-scenario state shared between glue classes. A new instance is injected for every scenario, so the driver
+ * and scenario held here belong to the worker thread executing that scenario only. With
+ * {@code webdriver.session.mode=multiplexed}, the driver is a view of a shared browser scoped to the scenario's own
+ * window.
+ */
 public class TestContext {
 
     private static final Logger logger = LoggerFactory.getLogger(TestContext.class);
-    private static final ThreadLocal<WebDriver> driverThreadLocal = new ThreadLocal<>();
     private Scenario scenario;
+    private WebDriver driver;
 
     public WebDriver getDriver() {
-        if (driverThreadLocal.get() == null) {
+        if (driver == null) {
             try {
                 logger.info("Initializing WebDriver for scenario: {}", scenario.getName());
-                driverThreadLocal.set(getDriverFromFactory());
+                driver = getDriverFromFactory();
             } catch (Exception e) {
                 logger.error("Error initializing WebDriver for scenario: {}", scenario.getName(), e);
                 throw new RuntimeException("Failed to initialize WebDriver", e);
             }
         }
-        return driverThreadLocal.get();
+        return driver;
     }
 
     private WebDriver getDriverFromFactory() {
-        return WebDriverFactory.getInstance().getDriver(scenario.getName());
+        return WebDriverFactory.getInstance().acquireDriver(scenario.getName());
     }
 
     public void quitDriver() {
-        if (driverThreadLocal.get() != null) {
+        if (driver != null) {
             try {
-                logger.info("Quitting WebDriver for scenario: {}", scenario.getName());
-                driverThreadLocal.get().quit();
+                logger.info("Releasing WebDriver for scenario: {}", scenario.getName());
+                WebDriverFactory.getInstance().drainNetworkStats(driver).ifPresent(this::reportNetworkStats);
+                WebDriverFactory.getInstance().releaseDriver(driver);
             } finally {
-                driverThreadLocal.remove();
+                driver = null;
             }
         }
     }
 
+    private void reportNetworkStats(Map<String, Long> stats) {
+        String profile = WebDriverFactory.getInstance().getNetworkProfileName().orElse("none");
+        String summary = String.format("Network profile '%s': %d request(s) blocked, %d stubbed, %d bytes not downloaded"
+                        + " (%d request(s) of unknown size)", profile, stats.get("blocked"), stats.get("stubbed"),
+                stats.get("bytes_not_downloaded"), stats.get("unknown_size"));
+        logger.info("{} for scenario: {}", summary, scenario.getName());
+        scenario.log(summary);
+        stats.forEach((name, value) -> RunMetrics.getInstance().add("network." + name, value));
+    }
+
     public void setScenario(Scenario scenario) {
         this.scenario = scenario;
         logger.info("Scenario set: {}", scenario.getName());
     }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
 }
@@ -0,0 +1,116 @@
+package com.flooid.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Clones a browser user data directory template, with its warm disk cache, into a private directory per session,
+ * so sessions start from an initialized profile without sharing (and locking) the same directory.
+ */
+class UserDataDirectories {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDataDirectories.class);
+    // Files a running browser uses to lock its profile; a copy must not inherit them
+    private static final Set<String> LOCK_FILES = Set.of("SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile");
+
+    private final Set<Path> preparedTemplates = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Makes sure a template exists, creating it once with the initializer when the directory is missing or empty.
+     *
+     * @param template    The template directory.
+     * @param initializer Fills the template directory, typically by running a browser session on it.
+     */
+    void prepare(Path template, Consumer<Path> initializer) {
+        if (preparedTemplates.contains(template)) {
+            return;
+        }
+        synchronized (this) {
+            if (preparedTemplates.contains(template)) {
+                return;
+            }
+            if (isEmpty(template)) {
+                logger.info("Creating browser user data template in {}", template.toAbsolutePath());
+                try {
+                    Files.createDirectories(template);
+                    initializer.accept(template);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not create browser user data template " + template, e);
+                } catch (RuntimeException e) {
+                    delete(template);
+                    throw e;
+                }
+            }
+            preparedTemplates.add(template);
+        }
+    }
+
+    /**
+     * Copies a template into a new temporary directory.
+     *
+     * @return The new directory, to be removed with {@link #delete(Path)} once the session has quit.
+     */
+    Path cloneTemplate(Path template) {
+        try {
+            Path directory = Files.createTempDirectory("flooid-user-data-");
+            try (Stream<Path> files = Files.walk(template)) {
+                for (Path source : (Iterable<Path>) files::iterator) {
+                    if (LOCK_FILES.contains(source.getFileName().toString())) {
+                        continue;
+                    }
+                    Path target = directory.resolve(template.relativize(source).toString());
+                    if (Files.isDirectory(source)) {
+                        Files.createDirectories(target);
+                    } else if (Files.isRegularFile(source)) {
+                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clone browser user data template " + template, e);
+        }
+    }
+
+    /**
+     * Removes a directory and its contents, logging instead of failing if some files cannot be removed.
+     */
+    void delete(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.debug("Could not delete {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not delete browser user data directory {}", directory, e);
+        }
+    }
+
+    private static boolean isEmpty(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return true;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findAny().isEmpty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read browser user data template " + directory, e);
+        }
+    }
+}
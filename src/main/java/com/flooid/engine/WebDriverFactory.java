@@ -1,162 +1,433 @@
 package com.flooid.engine;
 
+import com.flooid.network.NetworkArchive;
+import com.flooid.network.NetworkProfile;
+import com.flooid.network.NetworkStats;
+import com.flooid.network.ReplayServer;
+import com.flooid.reporting.CommandAccountingListener;
 import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
-import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.AbstractDriverOptions;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.http.Filter;
 import org.openqa.selenium.safari.SafariDriver;
 import org.openqa.selenium.safari.SafariOptions;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class WebDriverFactory {
 
     private static final WebDriverFactory instance = new WebDriverFactory();
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverFactory.class);
     private final Configuration configuration = Configuration.getInstance();
-    private final String seleniumUrl = configuration.getProperty("webdriver.remote_grid.url");
     private final String browserName = configuration.getProperty("browser").toLowerCase();
     private final String executionMode = configuration.getProperty("execution").toLowerCase();
-    private final boolean isHeadless = Boolean.parseBoolean(configuration.getProperty("browser.headless", "false"));
+    private final BrowserProfileRegistry browserProfiles = BrowserProfileRegistry.getInstance();
+    private final UserDataDirectories userDataDirectories = new UserDataDirectories();
+    private final String sessionMode = configuration.getProperty("webdriver.session.mode", "per-scenario").toLowerCase();
+    private final boolean isUserContextIsolation = "multiplexed".equals(sessionMode)
+            && "user_context".equalsIgnoreCase(configuration.getProperty("webdriver.multiplex.isolation", "user_context"));
+    private final boolean isSoftResetEnabled = configuration.getBoolean("navigation.soft_reset", false);
+    private final boolean isCommandAccountingEnabled = configuration.getBoolean("webdriver.command_accounting", false);
+    private final String networkMode = configuration.getProperty("network.mode", "live").toLowerCase();
+    private final NetworkArchive recordingArchive = "record".equals(networkMode)
+            ? NetworkArchive.open(Paths.get(configuration.getProperty("network.archive.path", "network-archive")))
+            : null;
+    private final Optional<NetworkProfile> networkProfile = NetworkProfile.fromConfiguration(configuration);
+    private final Map<WebDriver, NetworkStats> networkStats = new ConcurrentHashMap<>();
+    private final Map<WebDriver, Path> sessionUserDataDirectories = new ConcurrentHashMap<>();
+    private final ResourceGovernor governor = createGovernor();
+    private volatile WebDriverPool pool;
+    private volatile BrowserMultiplexer multiplexer;
+    private volatile GridRouter gridRouter;
+    private volatile ReplayServer replayServer;
+
+    private WebDriverFactory() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "webdriver-shutdown"));
+    }
 
     public static WebDriverFactory getInstance() {
         return instance;
     }
 
+    /**
+     * Quits the pooled and multiplexed browsers, then closes the grid clients their sessions used.
+     */
+    private void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (multiplexer != null) {
+            multiplexer.shutdown();
+        }
+        if (gridRouter != null) {
+            gridRouter.shutdown();
+        }
+    }
+
     public WebDriver getDriver(String testName) {
         return createDriver(testName);
     }
 
-    private WebDriver createDriver(String testName) {
-        WebDriver driver = null;
+    /**
+     * Acquires a driver for a scenario. Depending on {@code webdriver.session.mode} this either leases a warm
+     * session from the pool ({@code pooled}), opens a window in a browser shared with other scenarios
+     * ({@code multiplexed}) or starts a new browser ({@code per-scenario}).
+     */
+    public WebDriver acquireDriver(String testName) {
+        if (governor == null) {
+            return acquireSession(testName);
+        }
+        governor.admit();
+        try {
+            return acquireSession(testName);
+        } catch (RuntimeException e) {
+            governor.release();
+            throw e;
+        }
+    }
 
-        switch (executionMode) {
-            case "local":
-                driver = createLocalDriver();
-                break;
-            case "remote":
-                driver = createRemoteDriver();
-                break;
+    private WebDriver acquireSession(String testName) {
+        switch (sessionMode) {
+            case "per-scenario":
+                return createDriver(testName);
+            case "pooled":
+                return getPool().lease();
+            case "multiplexed":
+                return getMultiplexer().acquire();
             default:
-                throw new IllegalArgumentException("Invalid execution mode: " + executionMode);
+                throw new IllegalArgumentException("Invalid session mode: " + sessionMode);
         }
+    }
 
-        configureDriver(driver);
-        return driver;
+    /**
+     * Hands back a driver obtained from {@link #acquireDriver(String)}: pooled sessions are reset and returned
+     * to the pool, multiplexed windows are closed, per-scenario sessions are quit. A multiplexed window its scenario
+     * already quit is only released once.
+     */
+    public void releaseDriver(WebDriver driver) {
+        boolean handedBack = true;
+        try {
+            if (multiplexer != null) {
+                handedBack = multiplexer.release(driver);
+            } else if (pool != null) {
+                pool.release(driver);
+            } else {
+                quitDriver(driver);
+            }
+        } finally {
+            if (governor != null && handedBack) {
+                governor.release();
+            }
+        }
     }
 
-    private WebDriver createLocalDriver() {
-        switch (browserName) {
-            case "chrome":
-                return createLocalChromeDriver();
-            case "firefox":
-                return createLocalFirefoxDriver();
-            case "edge":
-                return createLocalEdgeDriver();
-            case "safari":
-                return createLocalSafariDriver();
-            default:
-                throw new IllegalArgumentException("Invalid browser type: " + browserName);
+    private WebDriverPool getPool() {
+        if (pool == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    pool = createPool();
+                }
+            }
         }
+        return pool;
     }
 
-    private WebDriver createRemoteDriver() {
-        switch (browserName) {
-            case "chrome":
-                return createRemoteChromeDriver();
-            case "firefox":
-                return createRemoteFirefoxDriver();
-            case "edge":
-                return createRemoteEdgeDriver();
-            case "safari":
-                return createRemoteSafariDriver();
-            default:
-                throw new IllegalArgumentException("Invalid browser type: " + browserName);
+    private WebDriverPool createPool() {
+        int size = configuration.getInt("webdriver.pool.size", 2);
+        Duration maxSessionAge = configuration.getDuration("webdriver.pool.max_session_age", Duration.ofMinutes(10));
+        Duration leaseTimeout = configuration.getDuration("webdriver.pool.lease_timeout", Duration.ofMinutes(2));
+        WebDriverPool driverPool = new WebDriverPool(() -> createDriver("pooled-session"), this::quitDriver,
+                this::shouldRecycle, size, maxSessionAge, leaseTimeout, isSoftResetEnabled);
+        driverPool.prewarm();
+        return driverPool;
+    }
+
+    private BrowserMultiplexer getMultiplexer() {
+        if (multiplexer == null) {
+            synchronized (this) {
+                if (multiplexer == null) {
+                    multiplexer = createMultiplexer();
+                }
+            }
         }
+        return multiplexer;
     }
 
-    private WebDriver createLocalChromeDriver() {
-        ChromeOptions options = new ChromeOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    private BrowserMultiplexer createMultiplexer() {
+        if (networkProfile.isPresent() || "record".equals(networkMode)) {
+            // DevTools network filters only see the window they were installed on
+            throw new IllegalStateException("webdriver.session.mode=multiplexed does not support network.mode=" + networkMode
+                    + " with network.profile=" + getNetworkProfileName().orElse("none"));
         }
-        return new ChromeDriver(options);
+        BrowserProfile profile = browserProfiles.get(browserName);
+        int contextsPerBrowser = configuration.getInt("webdriver.multiplex.contexts_per_browser", 4);
+        BrowserMultiplexer browserMultiplexer = new BrowserMultiplexer(() -> createDriver("shared-browser"), this::quitDriver,
+                // Start-up arguments only size the first window of a browser
+                view -> view.manage().window().setSize(profile.getViewport()), this::shouldRecycle,
+                this::releaseDriver, contextsPerBrowser, isUserContextIsolation);
+        return browserMultiplexer;
     }
 
-    private WebDriver createLocalFirefoxDriver() {
-        FirefoxOptions options = new FirefoxOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    /**
+     * Starts the resource governor when {@code governor.enabled} is set.
+     */
+    private ResourceGovernor createGovernor() {
+        if (!configuration.getBoolean("governor.enabled", false)) {
+            return null;
         }
-        return new FirefoxDriver(options);
+        ResourceGovernor resourceGovernor = ResourceGovernor.fromConfiguration(configuration);
+        Runtime.getRuntime().addShutdownHook(new Thread(resourceGovernor::shutdown, "resource-governor-shutdown"));
+        return resourceGovernor;
+    }
+
+    private boolean shouldRecycle(WebDriver driver) {
+        return governor != null && governor.shouldRecycle(driver);
     }
 
-    private WebDriver createLocalEdgeDriver() {
-        EdgeOptions options = new EdgeOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    /**
+     * Returns the URL to open for a configured URL. With {@code network.mode=replay}, URLs of recorded sites point at
+     * a local server replaying {@code network.archive.path}, started on first use.
+     */
+    public String resolveUrl(String url) {
+        return "replay".equals(networkMode) ? getReplayServer().rewrite(url) : url;
+    }
+
+    private ReplayServer getReplayServer() {
+        if (replayServer == null) {
+            synchronized (this) {
+                if (replayServer == null) {
+                    NetworkArchive archive = NetworkArchive.load(Paths.get(configuration.getProperty("network.archive.path", "network-archive")));
+                    ReplayServer server = ReplayServer.start(archive, configuration.getProperty("application.contact.page.url"));
+                    Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "network-replay-shutdown"));
+                    replayServer = server;
+                }
+            }
         }
-        return new EdgeDriver(options);
+        return replayServer;
     }
 
-    private WebDriver createLocalSafariDriver() {
-        SafariOptions options = new SafariOptions();
-        return new SafariDriver(options);
+    /**
+     * Whether page objects may reset a page in place instead of navigating to it again ({@code navigation.soft_reset}).
+     */
+    public boolean isSoftResetEnabled() {
+        return isSoftResetEnabled;
     }
 
-    private WebDriver createRemoteChromeDriver() {
-        ChromeOptions options = new ChromeOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    /**
+     * Returns what the network profile kept off the network for a driver since the previous call, so it can be
+     * reported per scenario.
+     *
+     * @return The counts, or empty when no network profile is active.
+     */
+    public Optional<Map<String, Long>> drainNetworkStats(WebDriver driver) {
+        return Optional.ofNullable(networkStats.get(driver)).map(NetworkStats::drain);
+    }
+
+    public Optional<String> getNetworkProfileName() {
+        return networkProfile.map(NetworkProfile::getName);
+    }
+
+    /**
+     * Returns the number of session slots of the healthy Selenium Grids, in remote execution.
+     */
+    public OptionalInt getGridCapacity() {
+        return "remote".equals(executionMode) ? OptionalInt.of(getGridRouter().getCapacity()) : OptionalInt.empty();
+    }
+
+    private void quitDriver(WebDriver driver) {
+        logger.debug("Quitting WebDriver session");
+        networkStats.remove(driver);
+        if (governor != null) {
+            governor.untrack(driver);
+        }
+        try {
+            driver.quit();
+        } finally {
+            Path userDataDirectory = sessionUserDataDirectories.remove(driver);
+            if (userDataDirectory != null) {
+                userDataDirectories.delete(userDataDirectory);
+            }
+        }
+    }
+
+    private WebDriver createDriver(String testName) {
+        BrowserProfile profile = browserProfiles.get(browserName);
+        WebDriver driver;
+        WebDriver localDriver = null;
+        Path userDataDirectory = null;
+
+        switch (executionMode) {
+            case "local":
+                userDataDirectory = cloneUserDataTemplate(profile);
+                try {
+                    driver = createLocalDriver(sessionOptions(profile, userDataDirectory));
+                    localDriver = driver;
+                } catch (RuntimeException e) {
+                    if (userDataDirectory != null) {
+                        userDataDirectories.delete(userDataDirectory);
+                    }
+                    throw e;
+                }
+                break;
+            case "remote":
+                driver = createRemoteWebDriver(sessionOptions(profile, null));
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid execution mode: " + executionMode);
+        }
+
+        NetworkStats stats = networkProfile.isPresent() ? new NetworkStats() : null;
+        driver = interceptNetwork(driver, stats);
+        if (isCommandAccountingEnabled) {
+            driver = new EventFiringDecorator<>(new CommandAccountingListener()).decorate(driver);
+        }
+        if (stats != null) {
+            networkStats.put(driver, stats);
+        }
+        if (userDataDirectory != null) {
+            sessionUserDataDirectories.put(driver, userDataDirectory);
+        }
+        if (governor != null && localDriver != null) {
+            governor.track(driver, localDriver);
         }
-        return createRemoteWebDriver(options);
+        configureDriver(driver, profile);
+        return driver;
     }
 
-    private WebDriver createRemoteFirefoxDriver() {
-        FirefoxOptions options = new FirefoxOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    private AbstractDriverOptions<?> sessionOptions(BrowserProfile profile, Path userDataDirectory) {
+        AbstractDriverOptions<?> options = profile.sessionOptions(userDataDirectory);
+        if (isUserContextIsolation) {
+            // Opens the BiDi connection needed to create user contexts
+            options.setCapability("webSocketUrl", true);
         }
-        return createRemoteWebDriver(options);
+        return options;
     }
 
-    private WebDriver createRemoteEdgeDriver() {
-        EdgeOptions options = new EdgeOptions();
-        options.setAcceptInsecureCerts(true);
-        if (isHeadless) {
-            options.addArguments("--headless");
+    /**
+     * Applies {@code network.mode} and {@code network.profile} through DevTools, before the driver is decorated, on a
+     * driver augmented with DevTools support when it is remote. Recording intercepts every request and response, so
+     * the profile then runs as a filter in front of the recorder; otherwise the profile is installed on its own and
+     * only intercepts the requests it stubs.
+     */
+    private WebDriver interceptNetwork(WebDriver driver, NetworkStats stats) {
+        boolean recording;
+        switch (networkMode) {
+            case "live":
+            case "replay":
+                recording = false;
+                break;
+            case "record":
+                recording = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid network mode: " + networkMode);
+        }
+        if (!recording && networkProfile.isEmpty()) {
+            return driver;
+        }
+        WebDriver devToolsDriver = driver instanceof HasDevTools ? driver : new Augmenter().augment(driver);
+        if (!(devToolsDriver instanceof HasDevTools)) {
+            throw new IllegalStateException("network.mode=" + networkMode + " with network.profile="
+                    + getNetworkProfileName().orElse("none") + " needs a Chromium-based browser (chrome or edge) but was " + browserName);
         }
-        return createRemoteWebDriver(options);
+        if (recording) {
+            List<Filter> filters = new ArrayList<>();
+            // The profile runs first so blocked and stubbed requests are neither sent nor recorded
+            networkProfile.ifPresent(profile -> filters.add(profile.filter(stats)));
+            filters.add(recordingArchive.recordingFilter());
+            new NetworkInterceptor(devToolsDriver, filters.stream().reduce(Filter::andThen).get());
+        } else {
+            DevTools devTools = ((HasDevTools) devToolsDriver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            networkProfile.get().install(devTools, stats);
+        }
+        return devToolsDriver;
     }
 
-    private WebDriver createRemoteSafariDriver() {
-        SafariOptions options = new SafariOptions();
-        return createRemoteWebDriver(options);
+    /**
+     * Clones the profile's user data template, with its warm disk cache, for a new local session. The template is
+     * created on first use by loading the application once with the normal page load strategy.
+     *
+     * @return The session's user data directory, or null when the profile has no template.
+     */
+    private Path cloneUserDataTemplate(BrowserProfile profile) {
+        Path template = profile.getUserDataTemplate();
+        if (template == null) {
+            return null;
+        }
+        userDataDirectories.prepare(template, directory -> {
+            AbstractDriverOptions<?> options = profile.sessionOptions(directory);
+            options.setPageLoadStrategy(PageLoadStrategy.NORMAL);
+            WebDriver driver = createLocalDriver(options);
+            try {
+                driver.get(resolveUrl(configuration.getProperty("application.contact.page.url")));
+            } finally {
+                driver.quit();
+            }
+        });
+        return userDataDirectories.cloneTemplate(template);
+    }
+
+    private WebDriver createLocalDriver(AbstractDriverOptions<?> options) {
+        switch (browserName) {
+            case "chrome":
+                return new ChromeDriver((ChromeOptions) options);
+            case "firefox":
+                return new FirefoxDriver((FirefoxOptions) options);
+            case "edge":
+                return new EdgeDriver((EdgeOptions) options);
+            case "safari":
+                return new SafariDriver((SafariOptions) options);
+            default:
+                throw new IllegalArgumentException("Invalid browser type: " + browserName);
+        }
     }
 
     private WebDriver createRemoteWebDriver(Capabilities browserOptions) {
-        try {
-            return new RemoteWebDriver(new URL(seleniumUrl), browserOptions);
-        } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Invalid Selenium Grid URL: " + seleniumUrl, e);
+        return getGridRouter().createSession(browserOptions);
+    }
+
+    private GridRouter getGridRouter() {
+        if (gridRouter == null) {
+            synchronized (this) {
+                if (gridRouter == null) {
+                    gridRouter = GridRouter.fromConfiguration(configuration);
+                }
+            }
         }
+        return gridRouter;
     }
 
-    private void configureDriver(WebDriver driver) {
-        long timeout = Long.parseLong(configuration.getProperty("webdriver.timeout", "30"));
-        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(timeout));
+    /**
+     * The page load timeout and, where supported, the viewport are already part of the session's capabilities and
+     * startup arguments; only what they cannot express costs a command here.
+     */
+    private void configureDriver(WebDriver driver, BrowserProfile profile) {
         driver.manage().deleteAllCookies();
-        driver.manage().window().maximize();
+        if (!profile.sizesWindowAtStartup()) {
+            driver.manage().window().setSize(profile.getViewport());
+        }
     }
 }
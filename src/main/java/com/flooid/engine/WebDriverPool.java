@@ -0,0 +1,280 @@
+package com.flooid.engine;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of warm WebDriver sessions with lease/return semantics.
+ * Sessions are reset cheaply when returned and evicted (and replaced in the background) when they
+ * are broken, older than the configured maximum age or due for retirement.
+ */
+public class WebDriverPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver> driverSupplier;
+    private final Consumer<WebDriver> driverDisposer;
+    private final Predicate<WebDriver> retirementCheck;
+    private final int size;
+    private final Duration maxSessionAge;
+    private final Duration leaseTimeout;
+    private final boolean keepPageOnReset;
+    private final BlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<>();
+    private final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger liveSessions = new AtomicInteger();
+    private final ExecutorService maintenanceExecutor;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a pool.
+     *
+     * @param driverSupplier Creates a new, fully configured WebDriver session.
+     * @param driverDisposer Quits a WebDriver session that leaves the pool.
+     * @param retirementCheck Tells whether a session should be replaced instead of reused, e.g. when it uses too
+     *                        much memory.
+     * @param size           The maximum number of live sessions, also the pre-warm target.
+     * @param maxSessionAge  The age after which a session is evicted instead of reused.
+     * @param leaseTimeout   How long {@link #lease()} waits for a session before failing.
+     * @param keepPageOnReset Whether a returned session keeps its current page instead of loading
+     *                        {@code about:blank}, so the next scenario can reset the page in place.
+     */
+    public WebDriverPool(Supplier<WebDriver> driverSupplier, Consumer<WebDriver> driverDisposer,
+                         Predicate<WebDriver> retirementCheck, int size, Duration maxSessionAge, Duration leaseTimeout, boolean keepPageOnReset) {
+        if (size < 1) {
+            throw new IllegalArgumentException("WebDriver pool size must be at least 1 but was " + size);
+        }
+        this.driverSupplier = driverSupplier;
+        this.driverDisposer = driverDisposer;
+        this.retirementCheck = retirementCheck;
+        this.size = size;
+        this.maxSessionAge = maxSessionAge;
+        this.leaseTimeout = leaseTimeout;
+        this.keepPageOnReset = keepPageOnReset;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.maintenanceExecutor = Executors.newFixedThreadPool(Math.min(size, 4), runnable -> {
+            Thread thread = new Thread(runnable, "webdriver-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts sessions in the background until the pool holds its configured size.
+     */
+    public void prewarm() {
+        logger.info("Pre-warming WebDriver pool with {} session(s)", size);
+        for (int i = 0; i < size; i++) {
+            maintenanceExecutor.submit(this::replenish);
+        }
+    }
+
+    /**
+     * Leases a session from the pool, starting one on demand when the pool is below its size.
+     *
+     * @return A WebDriver session owned exclusively by the caller until {@link #release(WebDriver)}.
+     */
+    public WebDriver lease() {
+        if (shutdown) {
+            throw new IllegalStateException("WebDriver pool has been shut down");
+        }
+        while (true) {
+            PooledSession session = idleSessions.poll();
+            if (session == null && reserveSlot()) {
+                session = createSession();
+            }
+            if (session == null) {
+                session = awaitIdleSession();
+            }
+            if (session.isExpired(maxSessionAge)) {
+                logger.info("Evicting WebDriver session older than {}", maxSessionAge);
+                evict(session);
+                continue;
+            }
+            if (retirementCheck.test(session.driver)) {
+                logger.info("Evicting WebDriver session due for retirement");
+                evict(session);
+                continue;
+            }
+            leasedSessions.put(session.driver, session);
+            return session.driver;
+        }
+    }
+
+    /**
+     * Returns a leased session to the pool. The session is reset before it becomes available again;
+     * sessions that fail the reset are evicted and replaced in the background.
+     *
+     * @param driver The WebDriver previously obtained from {@link #lease()}.
+     */
+    public void release(WebDriver driver) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            logger.warn("Releasing a WebDriver session that was not leased from the pool, quitting it");
+            dispose(driver);
+            return;
+        }
+        if (shutdown) {
+            disposeSession(session);
+            return;
+        }
+        if (session.isExpired(maxSessionAge) || retirementCheck.test(driver)) {
+            evict(session);
+            return;
+        }
+        try {
+            reset(driver);
+            idleSessions.offer(session);
+        } catch (WebDriverException e) {
+            logger.warn("WebDriver session failed to reset, evicting it", e);
+            evict(session);
+        }
+    }
+
+    /**
+     * Quits the idle sessions, after the evicted ones have been quit. Leased sessions keep running under their
+     * scenarios and are quit when they are released.
+     */
+    public void shutdown() {
+        shutdown = true;
+        maintenanceExecutor.shutdown();
+        try {
+            if (!maintenanceExecutor.awaitTermination(leaseTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("WebDriver pool maintenance did not finish within {}", leaseTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PooledSession session;
+        while ((session = idleSessions.poll()) != null) {
+            liveSessions.decrementAndGet();
+            dispose(session.driver);
+        }
+        if (!leasedSessions.isEmpty()) {
+            logger.info("{} leased WebDriver session(s) will be quit when released", leasedSessions.size());
+        }
+    }
+
+    private PooledSession awaitIdleSession() {
+        try {
+            PooledSession session = idleSessions.poll(leaseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (session == null) {
+                throw new IllegalStateException("No WebDriver session became available within " + leaseTimeout);
+            }
+            return session;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a WebDriver session", e);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = liveSessions.get();
+            if (current >= size) {
+                return false;
+            }
+            if (liveSessions.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledSession createSession() {
+        try {
+            return new PooledSession(driverSupplier.get());
+        } catch (RuntimeException e) {
+            liveSessions.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void replenish() {
+        if (shutdown || !reserveSlot()) {
+            return;
+        }
+        try {
+            idleSessions.offer(createSession());
+        } catch (RuntimeException e) {
+            logger.error("Could not start a WebDriver session for the pool", e);
+        }
+    }
+
+    /**
+     * Quits a session in the background and replaces it. Its slot is only freed once it has quit, so the pool never
+     * holds more than its size in live sessions.
+     */
+    private void evict(PooledSession session) {
+        try {
+            maintenanceExecutor.submit(() -> {
+                disposeSession(session);
+                replenish();
+            });
+        } catch (RejectedExecutionException e) {
+            disposeSession(session);
+        }
+    }
+
+    private void disposeSession(PooledSession session) {
+        try {
+            dispose(session.driver);
+        } finally {
+            liveSessions.decrementAndGet();
+        }
+    }
+
+    private void dispose(WebDriver driver) {
+        try {
+            driverDisposer.accept(driver);
+        } catch (WebDriverException e) {
+            logger.warn("Error quitting WebDriver session", e);
+        }
+    }
+
+    private void reset(WebDriver driver) {
+        String mainWindow = driver.getWindowHandles().iterator().next();
+        for (String handle : driver.getWindowHandles()) {
+            if (!handle.equals(mainWindow)) {
+                driver.switchTo().window(handle).close();
+            }
+        }
+        driver.switchTo().window(mainWindow);
+        ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+        driver.manage().deleteAllCookies();
+        if (!keepPageOnReset) {
+            driver.get("about:blank");
+        }
+    }
+
+    private static class PooledSession {
+        private final WebDriver driver;
+        private final Instant createdAt = Instant.now();
+
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        private boolean isExpired(Duration maxAge) {
+            return Duration.between(createdAt, Instant.now()).compareTo(maxAge) > 0;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.flooid.network;
+
+import com.flooid.engine.RunMetrics;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk archive of recorded HTTP responses. Each response is one JSON line in {@code index.jsonl} (method, URL,
+ * status, headers and the hash of the body); bodies are stored once under {@code bodies/<sha-256>}.
+ * Only the first response for a given method and URL is kept.
+ */
+public class NetworkArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetworkArchive.class);
+    private static final String INDEX = "index.jsonl";
+    private static final String BODIES = "bodies";
+    // Headers that describe the original transfer or only make sense for the original origin
+    private static final Set<String> DROPPED_HEADERS = Set.of("content-encoding", "content-length", "transfer-encoding",
+            "connection", "keep-alive", "content-security-policy", "content-security-policy-report-only",
+            "strict-transport-security", "alt-svc", "set-cookie");
+
+    private final Path directory;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entriesWithoutQuery = new ConcurrentHashMap<>();
+
+    private NetworkArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens an archive for recording, creating its directory when needed. Responses already in the archive are
+     * kept and not recorded again.
+     */
+    public static NetworkArchive open(Path directory) {
+        NetworkArchive archive = new NetworkArchive(directory);
+        try {
+            Files.createDirectories(directory.resolve(BODIES));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create network archive " + directory, e);
+        }
+        archive.readIndex();
+        return archive;
+    }
+
+    /**
+     * Loads an existing archive for replay.
+     *
+     * @throws IllegalStateException if there is no archive in the directory.
+     */
+    public static NetworkArchive load(Path directory) {
+        if (!Files.isRegularFile(directory.resolve(INDEX))) {
+            throw new IllegalStateException("No network archive found in " + directory.toAbsolutePath()
+                    + ". Record one first with network.mode=record");
+        }
+        NetworkArchive archive = new NetworkArchive(directory);
+        archive.readIndex();
+        return archive;
+    }
+
+    /**
+     * Loads the archive in a directory if there is one.
+     */
+    public static Optional<NetworkArchive> loadIfPresent(Path directory) {
+        return Files.isRegularFile(directory.resolve(INDEX)) ? Optional.of(load(directory)) : Optional.empty();
+    }
+
+    /**
+     * Returns a DevTools network filter that lets every request through and records its response in this archive.
+     */
+    public Filter recordingFilter() {
+        return next -> request -> {
+            HttpResponse response = next.execute(request);
+            byte[] body = Contents.bytes(response.getContent());
+            response.setContent(Contents.bytes(body));
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : response.getHeaderNames()) {
+                if (!DROPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, response.getHeader(name));
+                }
+            }
+            record(new Entry(request.getMethod().toString(), request.getUri(), response.getStatus(), headers, hash(body)), body);
+            return response;
+        };
+    }
+
+    /**
+     * Finds the recorded response for a request, falling back to a response for the same URL with a different query
+     * string (cache busters, analytics parameters).
+     */
+    public Optional<Entry> find(String method, String url) {
+        Entry entry = entries.get(key(method, url));
+        if (entry == null) {
+            entry = entriesWithoutQuery.get(key(method, withoutQuery(url)));
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    public byte[] readBody(Entry entry) {
+        try {
+            return Files.readAllBytes(directory.resolve(BODIES).resolve(entry.bodyHash));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read recorded body for " + entry.url, e);
+        }
+    }
+
+    /**
+     * @return The size in bytes of the recorded body, or -1 if it cannot be read.
+     */
+    public long bodySize(Entry entry) {
+        try {
+            return Files.size(directory.resolve(BODIES).resolve(entry.bodyHash));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The origins ({@code https://host[:port]}) of all recorded URLs.
+     */
+    public Set<String> getOrigins() {
+        Set<String> origins = new LinkedHashSet<>();
+        entries.values().forEach(entry -> origins.add(originOf(entry.url)));
+        return origins;
+    }
+
+    static String originOf(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    private synchronized void record(Entry entry, byte[] body) {
+        String key = key(entry.method, entry.url);
+        if (entries.containsKey(key)) {
+            return;
+        }
+        try {
+            Path bodyFile = directory.resolve(BODIES).resolve(entry.bodyHash);
+            if (!Files.exists(bodyFile)) {
+                Files.write(bodyFile, body);
+            }
+            StringBuilder line = new StringBuilder();
+            try (JsonOutput output = new Json().newOutput(line)) {
+                output.setPrettyPrint(false).write(entry.toMap());
+            }
+            line.append('\n');
+            Files.writeString(directory.resolve(INDEX), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Could not record response for {}", entry.url, e);
+            return;
+        }
+        add(entry);
+        RunMetrics.getInstance().increment("network.recorded");
+    }
+
+    private void readIndex() {
+        Path index = directory.resolve(INDEX);
+        if (!Files.exists(index)) {
+            return;
+        }
+        try {
+            Json json = new Json();
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    add(Entry.fromMap(json.toType(line, Map.class)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read network archive " + index, e);
+        }
+        logger.info("Loaded {} recorded response(s) from {}", entries.size(), directory);
+    }
+
+    private void add(Entry entry) {
+        entries.putIfAbsent(key(entry.method, entry.url), entry);
+        entriesWithoutQuery.putIfAbsent(key(entry.method, withoutQuery(entry.url)), entry);
+    }
+
+    private static String key(String method, String url) {
+        return method.toUpperCase(Locale.ROOT) + " " + url;
+    }
+
+    private static String withoutQuery(String url) {
+        int end = url.indexOf('?');
+        return end < 0 ? url : url.substring(0, end);
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(body)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * One recorded response.
+     */
+    public static class Entry {
+        private final String method;
+        private final String url;
+        private final int status;
+        private final Map<String, String> headers;
+        private final String bodyHash;
+
+        private Entry(String method, String url, int status, Map<String, String> headers, String bodyHash) {
+            this.method = method;
+            this.url = url;
+            this.status = status;
+            this.headers = Collections.unmodifiableMap(headers);
+            this.bodyHash = bodyHash;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public String getContentType() {
+            return headers.entrySet().stream()
+                    .filter(header -> header.getKey().equalsIgnoreCase("content-type"))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse("application/octet-stream");
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("method", method);
+            map.put("url", url);
+            map.put("status", status);
+            map.put("headers", headers);
+            map.put("body", bodyHash);
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Entry fromMap(Map<String, Object> map) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            ((Map<String, Object>) map.getOrDefault("headers", Map.of()))
+                    .forEach((name, value) -> headers.put(name, String.valueOf(value)));
+            return new Entry((String) map.get("method"), (String) map.get("url"),
+                    ((Number) map.get("status")).intValue(), headers, (String) map.get("body"));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.flooid.network;
+
+import com.flooid.engine.Configuration;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Named set of network rules applied to Chromium-based browsers through DevTools, configured as
+ * {@code network.profile.<name>.block_urls}, {@code .block_types} and {@code .stub_urls}. Blocked requests fail in
+ * the browser, stubbed requests are answered with an empty {@code 200}; neither reaches the network.
+ * <p>
+ * Normally the rules are {@link #install installed} so that only stubbed requests are intercepted; while recording
+ * they run as a {@link #filter network filter} in front of the recorder, which intercepts every request anyway.
+ * Resource types are derived from the URL extension, and while recording also from the {@code Accept} header. The
+ * size of a request that was kept off the network is taken from the network archive when the URL was recorded.
+ */
+public class NetworkProfile {
+
+    private static final List<String> RESOURCE_TYPES = List.of("image", "font", "media", "stylesheet", "script");
+    private static final Map<String, Set<String>> TYPE_EXTENSIONS = Map.of(
+            "image", Set.of("png", "jpg", "jpeg", "gif", "webp", "avif", "svg", "ico", "bmp"),
+            "font", Set.of("woff", "woff2", "ttf", "otf", "eot"),
+            "media", Set.of("mp4", "webm", "ogg", "mp3", "wav", "m4a", "mov"),
+            "stylesheet", Set.of("css"),
+            "script", Set.of("js", "mjs"));
+    // Failed by the browser's own URL blocking rather than by DevTools
+    private static final String BLOCKED_BY_DEVTOOLS = "inspector";
+
+    private final String name;
+    private final List<String> blockedUrlGlobs;
+    private final List<Pattern> blockedUrls;
+    private final Set<String> blockedTypes;
+    private final List<String> stubbedUrlGlobs;
+    private final List<Pattern> stubbedUrls;
+    private final NetworkArchive sizes;
+
+    NetworkProfile(String name, List<String> blockedUrls, Set<String> blockedTypes, List<String> stubbedUrls,
+                   NetworkArchive sizes) {
+        this.name = name;
+        this.blockedUrlGlobs = blockedUrls;
+        this.blockedUrls = patterns(blockedUrls);
+        this.blockedTypes = blockedTypes;
+        this.stubbedUrlGlobs = stubbedUrls;
+        this.stubbedUrls = patterns(stubbedUrls);
+        this.sizes = sizes;
+    }
+
+    /**
+     * Reads the profile named by {@code network.profile}.
+     *
+     * @return The profile, or empty when {@code network.profile} is {@code none} or not set.
+     * @throws IllegalArgumentException if the profile is unknown or names an unknown resource type.
+     */
+    public static Optional<NetworkProfile> fromConfiguration(Configuration configuration) {
+        String name = configuration.getProperty("network.profile", "none").trim();
+        if (name.isEmpty() || name.equalsIgnoreCase("none")) {
+            return Optional.empty();
+        }
+        String prefix = "network.profile." + name + ".";
+        String blockUrls = configuration.getProperty(prefix + "block_urls", null);
+        String blockTypes = configuration.getProperty(prefix + "block_types", null);
+        String stubUrls = configuration.getProperty(prefix + "stub_urls", null);
+        if (blockUrls == null && blockTypes == null && stubUrls == null) {
+            throw new IllegalArgumentException("Invalid network profile: " + name + " (no " + prefix + "* settings)");
+        }
+        Set<String> types = split(blockTypes).stream().map(type -> type.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        for (String type : types) {
+            if (!RESOURCE_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Invalid resource type in " + prefix + "block_types: " + type
+                        + " (expected one of " + RESOURCE_TYPES + ")");
+            }
+        }
+        NetworkArchive sizes = NetworkArchive.loadIfPresent(
+                Paths.get(configuration.getProperty("network.archive.path", "network-archive"))).orElse(null);
+        return Optional.of(new NetworkProfile(name, split(blockUrls), types, split(stubUrls), sizes));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Applies this profile to a browser without pausing the requests it lets through: blocked URLs and types are
+     * handed to the browser's own URL blocking ({@code Network.setBlockedURLs}), and only requests matching a stub
+     * pattern are intercepted, before they are sent ({@code Fetch.enable} limited to those patterns).
+     *
+     * @param devTools The browser's DevTools connection, with a session attached.
+     * @param stats    Counts what the profile keeps off the network.
+     */
+    @SuppressWarnings("unchecked")
+    public void install(DevTools devTools, NetworkStats stats) {
+        // requestId -> method and URL, only kept when the archive can tell the size of a blocked request
+        Map<String, String[]> requests = new ConcurrentHashMap<>();
+        if (sizes != null) {
+            devTools.addListener(event("Network.requestWillBeSent"), params -> {
+                Map<String, Object> request = (Map<String, Object>) params.get("request");
+                requests.put((String) params.get("requestId"),
+                        new String[]{(String) request.get("method"), (String) request.get("url")});
+            });
+            devTools.addListener(event("Network.loadingFinished"), params -> requests.remove(params.get("requestId")));
+        }
+        devTools.addListener(event("Network.loadingFailed"), params -> {
+            String[] request = requests.remove(params.get("requestId"));
+            if (BLOCKED_BY_DEVTOOLS.equals(params.get("blockedReason"))) {
+                stats.recordBlocked(request == null ? -1 : sizeOf(request[0], request[1]));
+            }
+        });
+        devTools.send(new Command<>("Network.enable", Map.of()));
+        List<String> blocked = new ArrayList<>(blockedUrlGlobs);
+        for (String type : blockedTypes) {
+            for (String extension : TYPE_EXTENSIONS.get(type)) {
+                blocked.add("*." + extension);
+                blocked.add("*." + extension + "?*");
+            }
+        }
+        if (!blocked.isEmpty()) {
+            devTools.send(new Command<>("Network.setBlockedURLs", Map.of("urls", blocked)));
+        }
+
+        if (stubbedUrlGlobs.isEmpty()) {
+            return;
+        }
+        devTools.addListener(event("Fetch.requestPaused"), params -> {
+            Map<String, Object> request = (Map<String, Object>) params.get("request");
+            String url = (String) request.get("url");
+            stats.recordStubbed(sizeOf((String) request.get("method"), url));
+            Map<String, Object> fulfill = new HashMap<>();
+            fulfill.put("requestId", params.get("requestId"));
+            fulfill.put("responseCode", 200);
+            fulfill.put("responseHeaders", contentTypeOf(url)
+                    .map(type -> List.of(Map.of("name", "Content-Type", "value", type))).orElse(List.of()));
+            fulfill.put("body", "");
+            devTools.send(new Command<>("Fetch.fulfillRequest", fulfill));
+        });
+        List<Map<String, Object>> patterns = stubbedUrlGlobs.stream()
+                // Fetch patterns also treat ? as a wildcard and \ as an escape, profile patterns only *
+                .map(glob -> Map.<String, Object>of("urlPattern", glob.replace("\\", "\\\\").replace("?", "\\?"),
+                        "requestStage", "Request"))
+                .collect(Collectors.toList());
+        devTools.send(new Command<>("Fetch.enable", Map.of("patterns", patterns)));
+    }
+
+    /**
+     * Returns a DevTools network filter applying this profile and counting what it keeps off the network. Blocked
+     * requests are answered with an empty {@code 204}.
+     */
+    public Filter filter(NetworkStats stats) {
+        return next -> request -> {
+            String url = request.getUri();
+            if (matches(stubbedUrls, url)) {
+                stats.recordStubbed(sizeOf(request));
+                HttpResponse response = new HttpResponse().setStatus(200).setContent(Contents.bytes(new byte[0]));
+                contentTypeOf(url).ifPresent(type -> response.setHeader("Content-Type", type));
+                return response;
+            }
+            if (matches(blockedUrls, url) || blockedTypes.contains(resourceTypeOf(request))) {
+                stats.recordBlocked(sizeOf(request));
+                return new HttpResponse().setStatus(204);
+            }
+            return next.execute(request);
+        };
+    }
+
+    private long sizeOf(HttpRequest request) {
+        return sizeOf(request.getMethod().toString(), request.getUri());
+    }
+
+    private long sizeOf(String method, String url) {
+        if (sizes == null) {
+            return -1;
+        }
+        return sizes.find(method, url).map(sizes::bodySize).orElse(-1L);
+    }
+
+    static String resourceTypeOf(HttpRequest request) {
+        String extension = extensionOf(request.getUri());
+        String accept = Optional.ofNullable(request.getHeader("Accept")).orElse("").toLowerCase(Locale.ROOT);
+        if (TYPE_EXTENSIONS.get("image").contains(extension) || accept.startsWith("image/")) {
+            return "image";
+        } else if (TYPE_EXTENSIONS.get("font").contains(extension) || accept.startsWith("font/")) {
+            return "font";
+        } else if (TYPE_EXTENSIONS.get("media").contains(extension) || accept.startsWith("video/") || accept.startsWith("audio/")) {
+            return "media";
+        } else if (TYPE_EXTENSIONS.get("stylesheet").contains(extension) || accept.startsWith("text/css")) {
+            return "stylesheet";
+        } else if (TYPE_EXTENSIONS.get("script").contains(extension)) {
+            return "script";
+        }
+        return "other";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> (Map<String, Object>) input.read(Json.MAP_TYPE));
+    }
+
+    private static Optional<String> contentTypeOf(String url) {
+        switch (extensionOf(url)) {
+            case "js":
+            case "mjs":
+                return Optional.of("application/javascript");
+            case "css":
+                return Optional.of("text/css");
+            case "json":
+                return Optional.of("application/json");
+            case "html":
+                return Optional.of("text/html");
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static String extensionOf(String url) {
+        String path = url.replaceAll("[?#].*$", "");
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static boolean matches(List<Pattern> patterns, String url) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> patterns(List<String> globs) {
+        return globs.stream()
+                .map(glob -> Pattern.compile(Arrays.stream(glob.split("\\*", -1)).map(Pattern::quote)
+                        .collect(Collectors.joining(".*"))))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(part -> !part.isEmpty()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,49 @@
+package com.flooid.network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Requests a {@link NetworkProfile} kept off the network for one browser session, drained once per scenario.
+ */
+public class NetworkStats {
+
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong stubbed = new AtomicLong();
+    private final AtomicLong bytesNotDownloaded = new AtomicLong();
+    private final AtomicLong unknownSize = new AtomicLong();
+
+    void recordBlocked(long size) {
+        blocked.incrementAndGet();
+        recordSize(size);
+    }
+
+    void recordStubbed(long size) {
+        stubbed.incrementAndGet();
+        recordSize(size);
+    }
+
+    private void recordSize(long size) {
+        if (size < 0) {
+            unknownSize.incrementAndGet();
+        } else {
+            bytesNotDownloaded.addAndGet(size);
+        }
+    }
+
+    /**
+     * Returns the counts since the previous call and resets them.
+     *
+     * @return The number of blocked and stubbed requests, the bytes they would have downloaded (as far as known from
+     * the network archive) and the number of requests whose size is unknown.
+     */
+    public Map<String, Long> drain() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("blocked", blocked.getAndSet(0));
+        counts.put("stubbed", stubbed.getAndSet(0));
+        counts.put("bytes_not_downloaded", bytesNotDownloaded.getAndSet(0));
+        counts.put("unknown_size", unknownSize.getAndSet(0));
+        return counts;
+    }
+}
@@ -0,0 +1,154 @@
+package com.flooid.network;
+
+import com.flooid.engine.RunMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server replaying a {@link NetworkArchive}. The primary origin (the one of the page under test) is
+ * served from the server root, so relative links keep working; every other recorded origin is served under
+ * {@code /__origin/<scheme>/<host>/}. Absolute links to recorded origins are rewritten in text responses, and
+ * requests that were not recorded get an immediate 404 instead of going out to the network.
+ */
+public class ReplayServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayServer.class);
+    private static final String ORIGIN_PREFIX = "/__origin/";
+
+    private final NetworkArchive archive;
+    private final String primaryOrigin;
+    private final HttpServer server;
+    private final String baseUrl;
+    private final Map<String, String> originRewrites = new LinkedHashMap<>();
+
+    private ReplayServer(NetworkArchive archive, String primaryOrigin) throws IOException {
+        this.archive = archive;
+        this.primaryOrigin = primaryOrigin;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "network-replay");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        for (String origin : archive.getOrigins()) {
+            originRewrites.put(origin, localOrigin(origin));
+        }
+        originRewrites.put(primaryOrigin, baseUrl);
+    }
+
+    /**
+     * Starts a replay server for an archive.
+     *
+     * @param archive    The recorded responses.
+     * @param primaryUrl A URL of the page under test; its origin is served from the server root.
+     * @return The running server.
+     */
+    public static ReplayServer start(NetworkArchive archive, String primaryUrl) {
+        try {
+            ReplayServer replayServer = new ReplayServer(archive, NetworkArchive.originOf(primaryUrl));
+            // The server's dispatcher thread inherits the daemon flag of the thread that starts it
+            Thread starter = new Thread(replayServer.server::start, "network-replay-start");
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            logger.info("Replaying {} from {}", replayServer.primaryOrigin, replayServer.baseUrl);
+            return replayServer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the network replay server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting the network replay server", e);
+        }
+    }
+
+    /**
+     * Rewrites a URL of a recorded origin to the matching URL on this server. Other URLs are returned unchanged.
+     */
+    public String rewrite(String url) {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return url;
+        }
+        String local = originRewrites.get(NetworkArchive.originOf(url));
+        return local == null ? url : local + url.substring(NetworkArchive.originOf(url).length());
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private String localOrigin(String origin) {
+        URI uri = URI.create(origin);
+        return baseUrl + ORIGIN_PREFIX + uri.getScheme() + "/" + uri.getRawAuthority();
+    }
+
+    private String originalUrl(URI requestUri) {
+        String pathAndQuery = requestUri.getRawPath() + (requestUri.getRawQuery() == null ? "" : "?" + requestUri.getRawQuery());
+        if (!pathAndQuery.startsWith(ORIGIN_PREFIX)) {
+            return primaryOrigin + pathAndQuery;
+        }
+        String[] parts = pathAndQuery.substring(ORIGIN_PREFIX.length()).split("/", 3);
+        if (parts.length < 2) {
+            return null;
+        }
+        return parts[0] + "://" + parts[1] + (parts.length == 3 ? "/" + parts[2] : "/");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String url = originalUrl(exchange.getRequestURI());
+            Optional<NetworkArchive.Entry> entry = url == null ? Optional.empty()
+                    : archive.find(exchange.getRequestMethod(), url);
+            if (entry.isEmpty()) {
+                logger.debug("No recorded response for {} {}", exchange.getRequestMethod(), url);
+                RunMetrics.getInstance().increment("network.replay.missed");
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = archive.readBody(entry.get());
+            if (isText(entry.get().getContentType())) {
+                body = rewriteOrigins(new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            }
+            entry.get().getHeaders().forEach((name, value) ->
+                    exchange.getResponseHeaders().add(name, name.equalsIgnoreCase("location") ? rewrite(value) : value));
+            int status = entry.get().getStatus();
+            boolean hasBody = body.length > 0 && status != 204 && status != 304 && !"HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(status, hasBody ? body.length : -1);
+            if (hasBody) {
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            }
+            RunMetrics.getInstance().increment("network.replay.served");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String rewriteOrigins(String text) {
+        for (Map.Entry<String, String> rewrite : originRewrites.entrySet()) {
+            text = text.replace(rewrite.getKey(), rewrite.getValue());
+        }
+        return text;
+    }
+
+    private static boolean isText(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
+    }
+}
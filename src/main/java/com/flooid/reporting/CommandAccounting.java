@@ -0,0 +1,93 @@
+package com.flooid.reporting;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run-wide tally of WebDriver commands, filled by {@link CommandAccountingListener} and reported by
+ * {@link CommandAccountingPlugin}. Every command is timed per command type and attributed to the framework
+ * operation that issued it (such as {@code PageOperation.click}) and to the Cucumber step running on the
+ * issuing thread.
+ */
+public class CommandAccounting {
+
+    static final String OUTSIDE_STEPS = "(outside steps)";
+    static final String DIRECT = "(direct)";
+
+    private static final CommandAccounting instance = new CommandAccounting();
+
+    private final ThreadLocal<String> currentStep = new ThreadLocal<>();
+    private final Map<String, LatencyHistogram> commands = new ConcurrentSkipListMap<>();
+    private final Map<String, Tally> operations = new ConcurrentHashMap<>();
+    private final Map<String, Tally> steps = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> stepExecutions = new ConcurrentHashMap<>();
+
+    public static CommandAccounting getInstance() {
+        return instance;
+    }
+
+    void enterStep(String step) {
+        currentStep.set(step);
+    }
+
+    void exitStep(String step) {
+        currentStep.remove();
+        stepExecutions.computeIfAbsent(step, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records one command issued on the calling thread.
+     *
+     * @param command   The command type, such as {@code WebElement.click}.
+     * @param operation The framework operation that issued it, or {@code null} when it was issued directly.
+     * @param duration  The time the command took, including the round trip to the browser.
+     */
+    public void record(String command, String operation, Duration duration) {
+        commands.computeIfAbsent(command, key -> new LatencyHistogram()).record(duration);
+        operations.computeIfAbsent(operation != null ? operation : DIRECT, key -> new Tally()).add(duration);
+        String step = currentStep.get();
+        steps.computeIfAbsent(step != null ? step : OUTSIDE_STEPS, key -> new Tally()).add(duration);
+    }
+
+    boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    Map<String, LatencyHistogram> getCommands() {
+        return commands;
+    }
+
+    Map<String, Tally> getOperations() {
+        return operations;
+    }
+
+    Map<String, Tally> getSteps() {
+        return steps;
+    }
+
+    long getStepExecutions(String step) {
+        LongAdder executions = stepExecutions.get(step);
+        return executions == null ? 0 : executions.sum();
+    }
+
+    static class Tally {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void add(Duration duration) {
+            count.increment();
+            nanos.add(duration.toNanos());
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        Duration getTotal() {
+            return Duration.ofNanos(nanos.sum());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.flooid.reporting;
+
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Listener for Selenium's {@code EventFiringDecorator} that times every call made through a decorated driver
+ * and records it in {@link CommandAccounting}. Calls that only return a local helper object, such as
+ * {@code manage()} or {@code switchTo()}, do not reach the browser and are not counted.
+ */
+public class CommandAccountingListener implements WebDriverListener {
+
+    private static final String OPERATIONS_PACKAGE = "com.flooid.utils.";
+    private static final Set<String> LOCAL_METHODS = Set.of("manage", "switchTo", "navigate", "timeouts", "window",
+            "logs", "getWrappedDriver", "getWrappedElement", "getCoordinates");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final CommandAccounting accounting = CommandAccounting.getInstance();
+    private final ThreadLocal<Deque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (isCommand(method)) {
+            startTimes.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(method);
+    }
+
+    private void finish(Method method) {
+        if (!isCommand(method)) {
+            return;
+        }
+        Long startTime = startTimes.get().poll();
+        if (startTime != null) {
+            Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+            accounting.record(method.getDeclaringClass().getSimpleName() + "." + method.getName(), findOperation(), duration);
+        }
+    }
+
+    private static boolean isCommand(Method method) {
+        return method.getDeclaringClass() != Object.class && !LOCAL_METHODS.contains(method.getName());
+    }
+
+    /**
+     * Finds the outermost framework method on the stack, i.e. the page operation a page object called.
+     */
+    private static String findOperation() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(OPERATIONS_PACKAGE) && !frame.getMethodName().startsWith("lambda$"))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> frame.getClassName().substring(OPERATIONS_PACKAGE.length()) + "." + frame.getMethodName())
+                .orElse(null));
+    }
+}
@@ -0,0 +1,130 @@
+package com.flooid.reporting;
+
+import com.flooid.reporting.CommandAccounting.Tally;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cucumber plugin that tells {@link CommandAccounting} which step is running on each thread and, at the end of
+ * the run, writes {@code webdriver-commands.json} and {@code webdriver-round-trips.csv} with the WebDriver
+ * commands issued per step, per page operation and per command type. Nothing is written unless drivers were
+ * decorated ({@code webdriver.command_accounting=true}).
+ * <p>
+ * Register it with {@code cucumber.plugin=com.flooid.reporting.CommandAccountingPlugin:<output directory>}.
+ */
+public class CommandAccountingPlugin implements ConcurrentEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandAccountingPlugin.class);
+
+    private final Path outputDirectory;
+    private final CommandAccounting accounting = CommandAccounting.getInstance();
+
+    public CommandAccountingPlugin(File outputDirectory) {
+        this.outputDirectory = outputDirectory.toPath();
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepStarted.class, event -> accounting.enterStep(StepTimingPlugin.keyOf(event.getTestStep())));
+        publisher.registerHandlerFor(TestStepFinished.class, event -> accounting.exitStep(StepTimingPlugin.keyOf(event.getTestStep())));
+        publisher.registerHandlerFor(TestRunFinished.class, event -> writeReport());
+    }
+
+    private void writeReport() {
+        if (accounting.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> stepRows = stepRows();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("steps", stepRows);
+        report.put("operations", tallyRows(accounting.getOperations()));
+        report.put("commands", commandRows());
+        try {
+            Files.createDirectories(outputDirectory);
+            Files.writeString(outputDirectory.resolve("webdriver-commands.json"), new Json().toJson(report));
+            Files.write(outputDirectory.resolve("webdriver-round-trips.csv"), toCsv(stepRows), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write WebDriver command report to " + outputDirectory, e);
+        }
+        stepRows.forEach(row -> logger.info("Step '{}': {} round trip(s) per execution, {}ms in WebDriver commands",
+                row.get("key"), row.get("round_trips_per_execution"), row.get("command_ms")));
+    }
+
+    private List<Map<String, Object>> stepRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        sortedByTotal(accounting.getSteps()).forEach(entry -> {
+            long executions = accounting.getStepExecutions(entry.getKey());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", entry.getKey());
+            row.put("executions", executions);
+            row.put("commands", entry.getValue().getCount());
+            row.put("round_trips_per_execution", executions == 0 ? 0.0
+                    : Math.round(entry.getValue().getCount() * 10.0 / executions) / 10.0);
+            row.put("command_ms", entry.getValue().getTotal().toMillis());
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private static List<Map<String, Object>> tallyRows(Map<String, Tally> tallies) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        sortedByTotal(tallies).forEach(entry -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", entry.getKey());
+            row.put("commands", entry.getValue().getCount());
+            row.put("command_ms", entry.getValue().getTotal().toMillis());
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private List<Map<String, Object>> commandRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        accounting.getCommands().forEach((command, histogram) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", command);
+            row.put("count", histogram.getCount());
+            row.put("total_ms", histogram.getTotal().toMillis());
+            row.put("p50_ms", histogram.getPercentile(50).toMillis());
+            row.put("p95_ms", histogram.getPercentile(95).toMillis());
+            row.put("p99_ms", histogram.getPercentile(99).toMillis());
+            row.put("max_ms", histogram.getMax().toMillis());
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private static List<Map.Entry<String, Tally>> sortedByTotal(Map<String, Tally> tallies) {
+        List<Map.Entry<String, Tally>> entries = new ArrayList<>(tallies.entrySet());
+        entries.sort(Comparator.comparing((Map.Entry<String, Tally> entry) -> entry.getValue().getTotal()).reversed());
+        return entries;
+    }
+
+    private static List<String> toCsv(List<Map<String, Object>> rows) {
+        List<String> lines = new ArrayList<>();
+        lines.add("step,executions,commands,round_trips_per_execution,command_ms");
+        for (Map<String, Object> row : rows) {
+            lines.add(String.format("\"%s\",%s,%s,%s,%s", row.get("key").toString().replace("\"", "\"\""),
+                    row.get("executions"), row.get("commands"), row.get("round_trips_per_execution"), row.get("command_ms")));
+        }
+        return lines;
+    }
+}
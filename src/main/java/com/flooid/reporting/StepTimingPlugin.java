@@ -0,0 +1,138 @@
+package com.flooid.reporting;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cucumber plugin recording the duration of every step and scenario into latency histograms, keyed by the
+ * step definition pattern (so {@code I enter "a@b" ...} and {@code I enter "x@y" ...} share one entry), the
+ * hook type and location, and the scenario name. At the end of the run it writes {@code step-timings.json}
+ * and {@code step-timings.csv} with count, total, p50, p95, p99 and max for each key, sorted by total time.
+ * <p>
+ * Register it with {@code cucumber.plugin=com.flooid.reporting.StepTimingPlugin:<output directory>}.
+ */
+public class StepTimingPlugin implements ConcurrentEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StepTimingPlugin.class);
+    private static final int LOGGED_ENTRIES = 5;
+
+    private final Path outputDirectory;
+    private final Map<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> scenarios = new ConcurrentHashMap<>();
+
+    public StepTimingPlugin(File outputDirectory) {
+        this.outputDirectory = outputDirectory.toPath();
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> writeReport());
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        record(steps, keyOf(event.getTestStep()), event.getResult().getDuration());
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        record(scenarios, event.getTestCase().getName(), event.getResult().getDuration());
+    }
+
+    private static void record(Map<String, LatencyHistogram> histograms, String key, Duration duration) {
+        histograms.computeIfAbsent(key, k -> new LatencyHistogram()).record(duration);
+    }
+
+    static String keyOf(TestStep step) {
+        if (step instanceof PickleStepTestStep) {
+            PickleStepTestStep pickleStep = (PickleStepTestStep) step;
+            String pattern = pickleStep.getPattern();
+            return pattern != null ? pattern : pickleStep.getStep().getText();
+        } else if (step instanceof HookTestStep) {
+            return "@" + ((HookTestStep) step).getHookType() + " " + step.getCodeLocation();
+        }
+        return step.getCodeLocation();
+    }
+
+    private void writeReport() {
+        List<Map<String, Object>> stepRows = rows("step", steps);
+        List<Map<String, Object>> scenarioRows = rows("scenario", scenarios);
+        try {
+            Files.createDirectories(outputDirectory);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("steps", stepRows);
+            report.put("scenarios", scenarioRows);
+            Files.writeString(outputDirectory.resolve("step-timings.json"), new Json().toJson(report));
+
+            List<Map<String, Object>> allRows = new ArrayList<>(stepRows);
+            allRows.addAll(scenarioRows);
+            Files.write(outputDirectory.resolve("step-timings.csv"), toCsv(allRows), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write step timings to " + outputDirectory, e);
+        }
+        stepRows.stream().limit(LOGGED_ENTRIES).forEach(row ->
+                logger.info("Step '{}': count={} total={}ms p50={}ms p95={}ms p99={}ms max={}ms", row.get("key"),
+                        row.get("count"), row.get("total_ms"), row.get("p50_ms"), row.get("p95_ms"),
+                        row.get("p99_ms"), row.get("max_ms")));
+    }
+
+    private static List<Map<String, Object>> rows(String type, Map<String, LatencyHistogram> histograms) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        histograms.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, LatencyHistogram> entry) -> entry.getValue().getTotal())
+                        .reversed())
+                .forEach(entry -> {
+                    LatencyHistogram histogram = entry.getValue();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("type", type);
+                    row.put("key", entry.getKey());
+                    row.put("count", histogram.getCount());
+                    row.put("total_ms", histogram.getTotal().toMillis());
+                    row.put("mean_ms", histogram.getMean().toMillis());
+                    row.put("p50_ms", histogram.getPercentile(50).toMillis());
+                    row.put("p95_ms", histogram.getPercentile(95).toMillis());
+                    row.put("p99_ms", histogram.getPercentile(99).toMillis());
+                    row.put("max_ms", histogram.getMax().toMillis());
+                    rows.add(row);
+                });
+        return rows;
+    }
+
+    private static List<String> toCsv(List<Map<String, Object>> rows) {
+        List<String> lines = new ArrayList<>();
+        lines.add("type,key,count,total_ms,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+        for (Map<String, Object> row : rows) {
+            List<String> cells = new ArrayList<>();
+            row.forEach((column, value) -> cells.add(column.equals("key") ? quote(value.toString()) : value.toString()));
+            lines.add(String.join(",", cells));
+        }
+        return lines;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,114 @@
+package com.flooid.reporting;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Small local database of expected scenario durations, stored as one JSON file that survives {@code mvn clean}.
+ * Scenarios are keyed by feature URI and line ({@code classpath:features/InvalidEmailAddress.feature:15}), the line
+ * of the Examples row for Scenario Outlines. Each run's duration is blended into the stored value as an exponential
+ * moving average, so the estimates follow a scenario that gets slower or faster without being thrown off by one
+ * slow run.
+ */
+public class TimingDatabase {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingDatabase.class);
+    private static final double SMOOTHING = 0.3;
+
+    private final Path file;
+    private final Map<String, Entry> entries;
+
+    private TimingDatabase(Path file, Map<String, Entry> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the database, or an empty one if the file does not exist or cannot be read.
+     */
+    public static TimingDatabase load(Path file) {
+        return new TimingDatabase(file, read(file));
+    }
+
+    /**
+     * @return The expected duration of every known scenario.
+     */
+    public Map<String, Duration> getDurations() {
+        Map<String, Duration> durations = new LinkedHashMap<>();
+        entries.forEach((key, entry) -> durations.put(key, Duration.ofMillis(entry.durationMs)));
+        return Collections.unmodifiableMap(durations);
+    }
+
+    /**
+     * Blends the durations of a run into the database and writes it. The file is read again first, so runs of other
+     * JVMs that finished in the meantime are kept, and replaced atomically.
+     *
+     * @param durations The duration of every scenario that ran.
+     */
+    public synchronized void update(Map<String, Duration> durations) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        entries.clear();
+        entries.putAll(read(file));
+        durations.forEach((key, duration) -> entries.merge(key, new Entry(duration.toMillis(), 1), Entry::blend));
+        Map<String, Object> json = new TreeMap<>();
+        entries.forEach((key, entry) -> json.put(key, Map.of("duration_ms", entry.durationMs, "runs", entry.runs)));
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.writeString(temporary, new Json().toJson(json), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the timing database " + file, e);
+        }
+        logger.info("Updated {} scenario timing(s) in {}", durations.size(), file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entry> read(Path file) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return entries;
+        }
+        try {
+            Map<String, Map<String, Object>> json =
+                    new Json().toType(Files.readString(file, StandardCharsets.UTF_8), Map.class);
+            json.forEach((key, value) -> entries.put(key, new Entry(
+                    ((Number) value.get("duration_ms")).longValue(), ((Number) value.get("runs")).longValue())));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable timing database {}", file, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static class Entry {
+        private final long durationMs;
+        private final long runs;
+
+        private Entry(long durationMs, long runs) {
+            this.durationMs = durationMs;
+            this.runs = runs;
+        }
+
+        private static Entry blend(Entry stored, Entry latest) {
+            long blended = Math.round(stored.durationMs * (1 - SMOOTHING) + latest.durationMs * SMOOTHING);
+            return new Entry(blended, stored.runs + 1);
+        }
+    }
+}
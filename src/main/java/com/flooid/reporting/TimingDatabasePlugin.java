@@ -0,0 +1,57 @@
+package com.flooid.reporting;
+
+import com.flooid.engine.Configuration;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cucumber plugin writing the duration of every passed or failed scenario to the {@link TimingDatabase} at
+ * {@code scenario.timings.path} when the run finishes. Skipped and undefined scenarios are not recorded, as their
+ * durations say nothing about the next run.
+ * <p>
+ * Register it with {@code cucumber.plugin=com.flooid.reporting.TimingDatabasePlugin}.
+ */
+public class TimingDatabasePlugin implements ConcurrentEventListener {
+
+    public static final String TIMINGS_PATH_KEY = "scenario.timings.path";
+    public static final String DEFAULT_TIMINGS_PATH = "scenario-timings.json";
+
+    private final Map<String, Duration> durations = new ConcurrentHashMap<>();
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> timingDatabase().update(durations));
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        Status status = event.getResult().getStatus();
+        if (status == Status.PASSED || status == Status.FAILED) {
+            durations.put(keyOf(event.getTestCase()), event.getResult().getDuration());
+        }
+    }
+
+    /**
+     * Returns the key of a scenario, {@code <feature uri>:<line>}.
+     */
+    public static String keyOf(TestCase testCase) {
+        return testCase.getUri() + ":" + testCase.getLocation().getLine();
+    }
+
+    /**
+     * Loads the timing database configured by {@code scenario.timings.path}.
+     */
+    public static TimingDatabase timingDatabase() {
+        return TimingDatabase.load(Paths.get(
+                Configuration.getInstance().getProperty(TIMINGS_PATH_KEY, DEFAULT_TIMINGS_PATH)));
+    }
+}
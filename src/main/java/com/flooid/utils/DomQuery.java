@@ -0,0 +1,130 @@
+package com.flooid.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects several locator queries and resolves them all in a single {@link JavascriptExecutor} call.
+ * <pre>
+ * DomQuery.Result result = pageOperation.query()
+ *         .text("error", errorLabel)
+ *         .attribute("email", emailField, "value")
+ *         .execute();
+ * </pre>
+ */
+public class DomQuery {
+
+    private static final String SCRIPT = loadScript("scripts/dom-locate.js") + loadScript("scripts/dom-query.js");
+
+    private final JavascriptExecutor executor;
+    private final List<Map<String, Object>> queries = new ArrayList<>();
+
+    public DomQuery(JavascriptExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queries the visible text of the first matching element; the result is null if it is missing or hidden.
+     */
+    public DomQuery text(String name, By locator) {
+        return add(name, "text", locator, null);
+    }
+
+    /**
+     * Queries whether the first matching element is displayed; false if it is missing.
+     */
+    public DomQuery visible(String name, By locator) {
+        return add(name, "visible", locator, null);
+    }
+
+    /**
+     * Queries a property or attribute of the first matching element; the result is null if it is missing.
+     */
+    public DomQuery attribute(String name, By locator, String attribute) {
+        return add(name, "attribute", locator, attribute);
+    }
+
+    /**
+     * Queries the number of matching elements.
+     */
+    public DomQuery count(String name, By locator) {
+        return add(name, "count", locator, null);
+    }
+
+    /**
+     * Resolves all registered queries in one round trip.
+     */
+    @SuppressWarnings("unchecked")
+    public Result execute() {
+        Object result = executor.executeScript(SCRIPT, queries);
+        return new Result(result instanceof Map ? (Map<String, Object>) result : Collections.emptyMap());
+    }
+
+    private DomQuery add(String name, String type, By locator, String attribute) {
+        if (!(locator instanceof By.Remotable)) {
+            throw new IllegalArgumentException("Locator cannot be resolved in the browser: " + locator);
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        Map<String, Object> query = new HashMap<>();
+        query.put("name", name);
+        query.put("type", type);
+        query.put("using", parameters.using());
+        query.put("value", parameters.value());
+        query.put("attribute", attribute);
+        queries.add(query);
+        return this;
+    }
+
+    static String loadScript(String resource) {
+        try (InputStream inputStream = Objects.requireNonNull(DomQuery.class.getClassLoader().getResourceAsStream(resource),
+                "Script not found on the classpath: " + resource)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read script " + resource, e);
+        }
+    }
+
+    /**
+     * The structured result of a batch, looked up by the names the queries were registered with.
+     */
+    public static class Result {
+        private final Map<String, Object> values;
+
+        private Result(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        public String getText(String name) {
+            return (String) values.get(name);
+        }
+
+        public boolean isVisible(String name) {
+            return Boolean.TRUE.equals(values.get(name));
+        }
+
+        public String getAttribute(String name) {
+            return (String) values.get(name);
+        }
+
+        public long getCount(String name) {
+            Object count = values.get(name);
+            return count == null ? 0 : ((Number) count).longValue();
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.flooid.utils;
+
+import com.flooid.engine.RunMetrics;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Waits for a condition on a locator inside the browser: an injected MutationObserver re-checks the condition on
+ * every DOM change and the wait resolves through {@code executeAsyncScript} as soon as it holds, so a wait costs one
+ * round trip instead of one per poll. Waits longer than {@link #MAX_SCRIPT_WAIT} are split into several calls to
+ * stay within the driver's script timeout.
+ * <pre>
+ * DomWait.Result result = new DomWait(executor).until(DomWait.visible(errorLabel), Duration.ofSeconds(10));
+ * </pre>
+ */
+public class DomWait {
+
+    static final Duration MAX_SCRIPT_WAIT = Duration.ofSeconds(20);
+    private static final String SCRIPT = DomQuery.loadScript("scripts/dom-locate.js") + DomQuery.loadScript("scripts/dom-wait.js");
+
+    private final JavascriptExecutor executor;
+
+    public DomWait(JavascriptExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Holds when the first element matching the locator is displayed.
+     */
+    public static Condition visible(By locator) {
+        return new Condition("visible", locator, null);
+    }
+
+    /**
+     * Holds when the first element matching the locator is missing or hidden.
+     */
+    public static Condition hidden(By locator) {
+        return new Condition("hidden", locator, null);
+    }
+
+    /**
+     * Holds when the first element matching the locator is displayed with exactly the given (trimmed) text.
+     */
+    public static Condition text(By locator, String text) {
+        return new Condition("text", locator, text);
+    }
+
+    /**
+     * Whether a locator can be evaluated in the browser.
+     */
+    public static boolean supports(By locator) {
+        return locator instanceof By.Remotable;
+    }
+
+    /**
+     * Waits until the condition holds or the timeout expires.
+     *
+     * @return Whether the condition held, with the element text at that moment.
+     * @throws JavascriptException if the locator cannot be evaluated in the page.
+     */
+    @SuppressWarnings("unchecked")
+    public Result until(Condition condition, Duration timeout) {
+        Instant deadline = Instant.now().plus(timeout);
+        Map<String, Object> result;
+        do {
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            long chunkMillis = Math.max(0, Math.min(remaining.toMillis(), MAX_SCRIPT_WAIT.toMillis()));
+            result = (Map<String, Object>) executor.executeAsyncScript(SCRIPT, condition.toJson(), chunkMillis);
+            if (result.get("error") != null) {
+                throw new JavascriptException("Could not wait for " + condition + ": " + result.get("error"));
+            }
+        } while (!Boolean.TRUE.equals(result.get("satisfied")) && Instant.now().isBefore(deadline));
+
+        boolean satisfied = Boolean.TRUE.equals(result.get("satisfied"));
+        RunMetrics.getInstance().increment("wait.push.count");
+        if (!satisfied) {
+            RunMetrics.getInstance().increment("wait.push.timeouts");
+        }
+        return new Result(satisfied, (String) result.get("text"));
+    }
+
+    /**
+     * A condition on the first element matching a locator.
+     */
+    public static class Condition {
+        private final String type;
+        private final By locator;
+        private final String text;
+
+        private Condition(String type, By locator, String text) {
+            if (!supports(locator)) {
+                throw new IllegalArgumentException("Locator cannot be resolved in the browser: " + locator);
+            }
+            this.type = type;
+            this.locator = locator;
+            this.text = text;
+        }
+
+        private Map<String, Object> toJson() {
+            By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+            Map<String, Object> json = new HashMap<>();
+            json.put("type", type);
+            json.put("using", parameters.using());
+            json.put("value", parameters.value());
+            json.put("text", text);
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return text == null ? type + " " + locator : type + " '" + text + "' " + locator;
+        }
+    }
+
+    /**
+     * The outcome of a wait.
+     */
+    public static class Result {
+        private final boolean satisfied;
+        private final String text;
+
+        private Result(boolean satisfied, String text) {
+            this.satisfied = satisfied;
+            this.text = text;
+        }
+
+        public boolean isSatisfied() {
+            return satisfied;
+        }
+
+        /**
+         * @return The visible text of the first matching element when the wait ended, or null if it was missing or
+         * hidden.
+         */
+        public String getText() {
+            return text;
+        }
+    }
+}
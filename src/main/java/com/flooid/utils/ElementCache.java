@@ -0,0 +1,61 @@
+package com.flooid.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches resolved WebElement handles by locator so repeated operations on the same element skip the lookup.
+ * A handle that has gone stale is dropped and resolved again transparently.
+ */
+public class ElementCache {
+
+    private final SearchContext searchContext;
+    private final Map<By, WebElement> elements = new ConcurrentHashMap<>();
+
+    public ElementCache(SearchContext searchContext) {
+        this.searchContext = searchContext;
+    }
+
+    /**
+     * Returns the cached handle for the locator, looking it up first if needed.
+     *
+     * @throws org.openqa.selenium.NoSuchElementException if the element is not on the page; nothing is cached then.
+     */
+    public WebElement find(By locator) {
+        return elements.computeIfAbsent(locator, searchContext::findElement);
+    }
+
+    /**
+     * Applies an action to the element, re-resolving the handle once if it has gone stale.
+     *
+     * @param locator The locator of the element.
+     * @param action  The action to run against the element.
+     * @return The result of the action.
+     */
+    public <V> V apply(By locator, Function<WebElement, V> action) {
+        try {
+            return action.apply(find(locator));
+        } catch (StaleElementReferenceException e) {
+            invalidate(locator);
+            return action.apply(find(locator));
+        }
+    }
+
+    public boolean contains(By locator) {
+        return elements.containsKey(locator);
+    }
+
+    public void invalidate(By locator) {
+        elements.remove(locator);
+    }
+
+    public void clear() {
+        elements.clear();
+    }
+}
@@ -0,0 +1,40 @@
+package com.flooid.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Polling strategy whose delay grows by a constant factor after every check, up to a cap, with optional jitter.
+ */
+public class ExponentialBackoffPolling implements PollingStrategy {
+
+    private final long initialNanos;
+    private final long maxNanos;
+    private final double multiplier;
+    private final double jitter;
+
+    public ExponentialBackoffPolling(Duration initial, Duration max, double multiplier, double jitter) {
+        if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("Polling intervals must satisfy 0 < initial <= max but were " + initial + " and " + max);
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("Polling multiplier must be at least 1 but was " + multiplier);
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Polling jitter must be between 0 and 1 but was " + jitter);
+        }
+        this.initialNanos = initial.toNanos();
+        this.maxNanos = max.toNanos();
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public Duration nextDelay(int polls) {
+        double delay = Math.min(maxNanos, initialNanos * Math.pow(multiplier, Math.max(0, polls - 1)));
+        if (jitter > 0) {
+            delay *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+        return Duration.ofNanos((long) delay);
+    }
+}
@@ -1,11 +1,17 @@
 package com.flooid.utils;
 
+import com.flooid.engine.Configuration;
+import com.flooid.engine.RunMetrics;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
 
 /**
  * PageOperation class provides various methods to perform actions on web elements using Selenium WebDriver.
@@ -14,8 +20,17 @@ import java.time.Duration;
 public class PageOperation {
 
     private final WebDriver driver;
+    private final PollingStrategy pollingStrategy;
+    private final ElementCache elements;
     private final int DEFAULT_WAIT_SECONDS = 10;
     private static final Logger logger = LoggerFactory.getLogger(PageOperation.class);
+    private static final PollingStrategy DEFAULT_POLLING_STRATEGY = PollingStrategy.fromConfiguration();
+    private static final int PAGE_READY_SECONDS =
+            (int) Configuration.getInstance().getDuration("webdriver.timeout", Duration.ofSeconds(30)).getSeconds();
+    private static final Map<WebDriver, By> FAILED_LOCATORS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final boolean PUSH_WAITS =
+            "mutation_observer".equalsIgnoreCase(Configuration.getInstance().getProperty("wait.engine", "polling"));
+    private static final Map<WebDriver, Boolean> POLLING_ONLY_DRIVERS = Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * Constructor for the PageOperation class.
@@ -23,21 +38,63 @@ public class PageOperation {
      * @param driver The WebDriver instance to interact with web elements.
      */
     public PageOperation(WebDriver driver) {
+        this(driver, DEFAULT_POLLING_STRATEGY);
+    }
+
+    /**
+     * Constructor for the PageOperation class with a custom polling strategy for all waits.
+     *
+     * @param driver          The WebDriver instance to interact with web elements.
+     * @param pollingStrategy The strategy deciding the delay between two checks of a wait condition.
+     */
+    public PageOperation(WebDriver driver, PollingStrategy pollingStrategy) {
+        this(driver, pollingStrategy, new ElementCache(driver));
+    }
+
+    private PageOperation(WebDriver driver, PollingStrategy pollingStrategy, ElementCache elements) {
         this.driver = driver;
+        this.pollingStrategy = pollingStrategy;
+        this.elements = elements;
+    }
+
+    /**
+     * Returns a PageOperation on the same driver and element cache that waits with the given polling strategy.
+     *
+     * @param pollingStrategy The strategy deciding the delay between two checks of a wait condition.
+     * @return A PageOperation using the given polling strategy.
+     */
+    public PageOperation withPolling(PollingStrategy pollingStrategy) {
+        return new PageOperation(driver, pollingStrategy, elements);
+    }
+
+    /**
+     * Drops every cached element handle, e.g. after navigating away from the page.
+     */
+    public void clearElementCache() {
+        elements.clear();
     }
 
     /**
      * Waits for a certain condition for a specified number of seconds.
      *
      * @param seconds The maximum number of seconds to wait.
-     * @return A FluentWait object configured with the timeout and polling interval.
+     * @return A FluentWait object configured with the timeout and polling strategy.
      */
     public FluentWait<WebDriver> waitFor(int seconds) {
+        return waitFor(seconds, pollingStrategy);
+    }
+
+    /**
+     * Waits for a certain condition for a specified number of seconds, polling with the given strategy.
+     *
+     * @param seconds         The maximum number of seconds to wait.
+     * @param pollingStrategy The strategy deciding the delay between two checks of the condition.
+     * @return A FluentWait object configured with the timeout and polling strategy.
+     */
+    public FluentWait<WebDriver> waitFor(int seconds, PollingStrategy pollingStrategy) {
         int explicitWaitSeconds = seconds != 0 ? seconds : DEFAULT_WAIT_SECONDS;
-        int pollingSeconds = 1;
-        return new FluentWait<>(driver)
+        return new PollingWait<>(driver, pollingStrategy)
                 .withTimeout(Duration.ofSeconds(explicitWaitSeconds))
-                .pollingEvery(Duration.ofSeconds(pollingSeconds))
                 .ignoring(NoSuchElementException.class)
                 .ignoring(ElementNotInteractableException.class)
                 .ignoring(StaleElementReferenceException.class)
@@ -47,7 +104,7 @@ public class PageOperation {
     /**
      * Waits for a default period of time for a certain condition.
      *
-     * @return A FluentWait object configured with the default timeout and polling interval.
+     * @return A FluentWait object configured with the default timeout and polling strategy.
      */
     public FluentWait<WebDriver> waitFor() {
         return waitFor(DEFAULT_WAIT_SECONDS);
@@ -71,10 +128,17 @@ public class PageOperation {
      * @return The text content of the web element.
      */
     public String getText(By locator, int seconds) {
+        DomWait.Result pushed = waitInBrowser(locator, seconds, DomWait::visible);
+        if (pushed != null && pushed.isSatisfied()) {
+            return pushed.getText();
+        }
         try {
-            waitFor(seconds).until(ExpectedConditions.visibilityOfAllElementsLocatedBy(locator));
-            return driver.findElement(locator).getText();
+            if (pushed != null) {
+                throw new TimeoutException("Element was not displayed within " + seconds + "s: " + locator);
+            }
+            return waitFor(seconds).until(d -> elements.apply(locator, e -> e.isDisplayed() ? e.getText() : null));
         } catch (Exception e) {
+            recordFailure(locator);
             logger.error("Error getting text from the element: {}", locator, e);
             throw new PageOperationException("Error getting text from the element: " + locator, e);
         }
@@ -88,10 +152,13 @@ public class PageOperation {
     public void click(By locator) {
         try {
             logger.info("Attempting to click on the element: {}", locator);
-            WebElement element = waitFor().until(ExpectedConditions.elementToBeClickable(locator));
-            element.click();
+            interact(locator, DEFAULT_WAIT_SECONDS, element -> {
+                element.click();
+                return element;
+            });
             logger.info("Successfully clicked on the element: {}", locator);
         } catch (Exception e) {
+            recordFailure(locator);
             logger.error("Failed to click on the element: {}", locator, e);
             throw new RuntimeException("Error clicking on the element: " + locator, e);
         }
@@ -118,11 +185,13 @@ public class PageOperation {
      */
     public PageOperation type(By by, String text, int seconds) {
         try {
-            waitFor(seconds).until(ExpectedConditions.elementToBeClickable(by));
-            WebElement element = driver.findElement(by);
-            element.clear();  // Clear the field before typing
-            element.sendKeys(text);
+            interact(by, seconds, element -> {
+                element.clear();  // Clear the field before typing
+                element.sendKeys(text);
+                return element;
+            });
         } catch (Exception e) {
+            recordFailure(by);
             logger.error("Error typing into the element: {}", by, e);
             throw new PageOperationException("Error typing into the element: " + by, e);
         }
@@ -150,15 +219,40 @@ public class PageOperation {
      */
     public PageOperation type(By by, Keys keys, int seconds) {
         try {
-            waitFor(seconds).until(ExpectedConditions.elementToBeClickable(by));
-            driver.findElement(by).sendKeys(keys);
+            interact(by, seconds, element -> {
+                element.sendKeys(keys);
+                return element;
+            });
         } catch (Exception e) {
+            recordFailure(by);
             logger.error("Error sending keys to the element: {}", by, e);
             throw new PageOperationException("Error sending keys to the element: " + by, e);
         }
         return this;
     }
 
+    /**
+     * Navigates to a URL and waits until the page object reports the page as ready. How long the navigation itself
+     * blocks depends on the page load strategy; the readiness wait allows up to {@code webdriver.timeout}.
+     *
+     * @param url         The URL to navigate to.
+     * @param pageFactory Creates the page object for the page once the navigation returns.
+     * @param <P>         The type of the page object.
+     * @return The page object, ready to be used.
+     */
+    public <P extends ReadinessAware> P navigateTo(String url, Function<WebDriver, P> pageFactory) {
+        driver.get(url);
+        elements.clear();
+        P page = pageFactory.apply(driver);
+        try {
+            waitFor(PAGE_READY_SECONDS).until(page.readinessCondition());
+        } catch (TimeoutException e) {
+            logger.error("Page did not become ready: {}", url, e);
+            throw new PageOperationException("Page did not become ready: " + url, e);
+        }
+        return page;
+    }
+
     /**
      * Waits for the current URL to match the given URL.
      *
@@ -204,10 +298,17 @@ public class PageOperation {
      * @return True if the element is displayed, false otherwise.
      */
     public boolean isDisplayed(By by, int seconds) {
+        DomWait.Result pushed = waitInBrowser(by, seconds, DomWait::visible);
+        if (pushed != null && pushed.isSatisfied()) {
+            return true;
+        }
         try {
-            waitFor(seconds).until(ExpectedConditions.visibilityOfAllElementsLocatedBy(by));
-            return driver.findElement(by).isDisplayed();
+            if (pushed != null) {
+                throw new TimeoutException("Element was not displayed within " + seconds + "s: " + by);
+            }
+            return waitFor(seconds).until(d -> elements.apply(by, e -> e.isDisplayed() ? Boolean.TRUE : null));
         } catch (Exception e) {
+            recordFailure(by);
             logger.error("Error checking if the element is displayed: {}", by, e);
             throw new PageOperationException("Error checking if the element is displayed: " + by, e);
         }
@@ -231,11 +332,16 @@ public class PageOperation {
      * @return True if the element is not displayed, false otherwise.
      */
     public boolean isNotDisplayed(By by, int seconds) {
+        DomWait.Result pushed = waitInBrowser(by, seconds, DomWait::hidden);
+        if (pushed != null) {
+            return pushed.isSatisfied();
+        }
         try {
-            return waitFor(seconds).until(ExpectedConditions.invisibilityOfElementLocated(by));
+            return waitFor(seconds).until(d -> isAbsentOrHidden(by));
         } catch (TimeoutException e) {
             return false;
         } catch (Exception e) {
+            recordFailure(by);
             logger.error("Error checking if the element is not displayed: {}", by, e);
             throw new PageOperationException("Error checking if the element is not displayed: " + by, e);
         }
@@ -248,14 +354,117 @@ public class PageOperation {
      */
     public void scrollToElement(By by) {
         try {
-            WebElement element = driver.findElement(by);
-            ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element);
+            elements.apply(by, element -> ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element));
         } catch (Exception e) {
+            recordFailure(by);
             logger.error("Error scrolling to element: {}", by, e);
             throw new PageOperationException("Error scrolling to element: " + by, e);
         }
     }
 
+    /**
+     * Starts a batch of locator queries that is resolved in a single script call.
+     *
+     * @return A new, empty DomQuery bound to this page's driver.
+     */
+    public DomQuery query() {
+        return new DomQuery((JavascriptExecutor) driver);
+    }
+
+    /**
+     * Resolves a batch of locator queries in a single script call.
+     *
+     * @param query The queries to resolve.
+     * @return The result of every query in the batch.
+     */
+    public DomQuery.Result read(DomQuery query) {
+        try {
+            return query.execute();
+        } catch (Exception e) {
+            logger.error("Error reading batched element state", e);
+            throw new PageOperationException("Error reading batched element state", e);
+        }
+    }
+
+    /**
+     * Runs an action against an interactable element. A cached handle is used straight away, costing only the
+     * action's own command; the element is only waited for when it is not cached yet or the direct attempt fails.
+     */
+    private <V> V interact(By by, int seconds, Function<WebElement, V> action) {
+        if (elements.contains(by)) {
+            try {
+                return elements.apply(by, action);
+            } catch (ElementNotInteractableException | StaleElementReferenceException | NoSuchElementException e) {
+                logger.debug("Cached element {} is not interactable yet, waiting for it", by);
+                elements.invalidate(by);
+            }
+        }
+        waitFor(seconds).until(d -> elements.apply(by, e -> e.isDisplayed() && e.isEnabled() ? e : null));
+        return elements.apply(by, action);
+    }
+
+    /**
+     * Waits for a condition inside the browser, with {@code wait.engine=mutation_observer}. Returns null when the
+     * wait has to poll instead: the driver cannot run scripts, the locator cannot be resolved in the browser, or the
+     * script failed. A driver without async script support, or whose script timeout is too short, polls from then on.
+     */
+    private DomWait.Result waitInBrowser(By by, int seconds, Function<By, DomWait.Condition> condition) {
+        if (!PUSH_WAITS || !(driver instanceof JavascriptExecutor) || !DomWait.supports(by)
+                || POLLING_ONLY_DRIVERS.containsKey(driver)) {
+            return null;
+        }
+        int explicitWaitSeconds = seconds != 0 ? seconds : DEFAULT_WAIT_SECONDS;
+        try {
+            return new DomWait((JavascriptExecutor) driver).until(condition.apply(by), Duration.ofSeconds(explicitWaitSeconds));
+        } catch (UnsupportedCommandException | ScriptTimeoutException e) {
+            logger.warn("Waiting in the browser is not supported by this driver, polling from now on: {}", e.toString());
+            POLLING_ONLY_DRIVERS.put(driver, Boolean.TRUE);
+        } catch (WebDriverException e) {
+            logger.debug("Could not wait for {} in the browser, polling instead: {}", by, e.toString());
+        }
+        RunMetrics.getInstance().increment("wait.push.fallbacks");
+        return null;
+    }
+
+    private boolean isAbsentOrHidden(By by) {
+        try {
+            return !elements.apply(by, WebElement::isDisplayed);
+        } catch (NoSuchElementException | StaleElementReferenceException e) {
+            elements.invalidate(by);
+            return true;
+        }
+    }
+
+    /**
+     * Executes JavaScript in the context of the current page.
+     *
+     * @param script The script to execute.
+     * @param args   The arguments made available to the script as {@code arguments}.
+     * @return The value returned by the script.
+     */
+    public Object executeScript(String script, Object... args) {
+        try {
+            return ((JavascriptExecutor) driver).executeScript(script, args);
+        } catch (Exception e) {
+            logger.error("Error executing script: {}", script, e);
+            throw new PageOperationException("Error executing script: " + script, e);
+        }
+    }
+
+    /**
+     * Returns and forgets the locator of the last element operation that failed on the given driver.
+     *
+     * @param driver The WebDriver the operation ran on.
+     * @return The locator of the failed operation, or null if no operation has failed since the last call.
+     */
+    public static By takeLastFailedLocator(WebDriver driver) {
+        return FAILED_LOCATORS.remove(driver);
+    }
+
+    private void recordFailure(By locator) {
+        FAILED_LOCATORS.put(driver, locator);
+    }
+
     /**
      * Custom exception for handling page operation errors.
      */
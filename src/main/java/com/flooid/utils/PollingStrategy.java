@@ -0,0 +1,55 @@
+package com.flooid.utils;
+
+import com.flooid.engine.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Decides how long a wait sleeps between two checks of its condition.
+ */
+public interface PollingStrategy {
+
+    /**
+     * Returns the delay before the next check.
+     *
+     * @param polls The number of checks already made by the current wait (1 after the first check).
+     * @return The time to sleep before checking again.
+     */
+    Duration nextDelay(int polls);
+
+    /**
+     * Polls at a constant interval.
+     */
+    static PollingStrategy fixed(Duration interval) {
+        return polls -> interval;
+    }
+
+    /**
+     * Polls with exponentially growing delays, starting at {@code initial} and capped at {@code max}.
+     *
+     * @param jitter Fraction (0 to 1) by which each delay is randomly shortened or lengthened.
+     */
+    static PollingStrategy exponential(Duration initial, Duration max, double multiplier, double jitter) {
+        return new ExponentialBackoffPolling(initial, max, multiplier, jitter);
+    }
+
+    /**
+     * Builds the globally configured strategy from the {@code wait.polling.*} properties.
+     */
+    static PollingStrategy fromConfiguration() {
+        Configuration configuration = Configuration.getInstance();
+        String strategy = configuration.getProperty("wait.polling.strategy", "exponential").toLowerCase();
+        switch (strategy) {
+            case "fixed":
+                return fixed(configuration.getDuration("wait.polling.interval_ms", Duration.ofSeconds(1)));
+            case "exponential":
+                return exponential(
+                        configuration.getDuration("wait.polling.initial_interval_ms", Duration.ofMillis(5)),
+                        configuration.getDuration("wait.polling.max_interval_ms", Duration.ofMillis(250)),
+                        configuration.getDouble("wait.polling.multiplier", 2),
+                        configuration.getDouble("wait.polling.jitter", 0));
+            default:
+                throw new IllegalArgumentException("Invalid polling strategy: " + strategy);
+        }
+    }
+}
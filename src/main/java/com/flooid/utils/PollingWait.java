@@ -0,0 +1,79 @@
+package com.flooid.utils;
+
+import com.flooid.engine.RunMetrics;
+import org.openqa.selenium.support.ui.FluentWait;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * FluentWait whose sleep between checks comes from a {@link PollingStrategy} instead of a fixed interval.
+ * Every completed wait records how many checks it needed in {@link RunMetrics} under {@code wait.*}.
+ */
+public class PollingWait<T> extends FluentWait<T> {
+
+    private final StrategySleeper sleeper;
+
+    public PollingWait(T input, PollingStrategy strategy) {
+        this(input, new StrategySleeper(strategy));
+    }
+
+    private PollingWait(T input, StrategySleeper sleeper) {
+        super(input, Clock.systemDefaultZone(), sleeper);
+        this.sleeper = sleeper;
+    }
+
+    @Override
+    public <V> V until(Function<? super T, V> isTrue) {
+        sleeper.polls = 1;
+        boolean satisfied = false;
+        try {
+            V value = super.until(isTrue);
+            satisfied = true;
+            return value;
+        } finally {
+            record(sleeper.polls, satisfied);
+        }
+    }
+
+    private static void record(int polls, boolean satisfied) {
+        RunMetrics metrics = RunMetrics.getInstance();
+        metrics.increment("wait.count");
+        metrics.add("wait.polls", polls);
+        if (!satisfied) {
+            metrics.increment("wait.unsatisfied");
+        }
+        if (polls == 1) {
+            metrics.increment("wait.polls_per_wait.1");
+        } else if (polls == 2) {
+            metrics.increment("wait.polls_per_wait.2");
+        } else if (polls <= 5) {
+            metrics.increment("wait.polls_per_wait.3-5");
+        } else if (polls <= 10) {
+            metrics.increment("wait.polls_per_wait.6-10");
+        } else {
+            metrics.increment("wait.polls_per_wait.11+");
+        }
+    }
+
+    /**
+     * Ignores the interval FluentWait asks for and sleeps for the strategy's next delay instead.
+     * A PollingWait is created per wait, so the poll count is never shared between threads.
+     */
+    private static class StrategySleeper implements Sleeper {
+        private final PollingStrategy strategy;
+        private int polls;
+
+        private StrategySleeper(PollingStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            Duration delay = strategy.nextDelay(polls++);
+            Thread.sleep(delay.toMillis(), delay.toNanosPart() % 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.flooid.utils;
+
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Implemented by page objects that can tell when they are usable. {@link PageOperation#navigateTo} waits for this
+ * condition instead of for every subresource of the page, so with an {@code eager} or {@code none} page load
+ * strategy navigation returns as soon as the page can be used.
+ */
+public interface ReadinessAware {
+
+    /**
+     * @return The condition that holds once the page can be used, such as its main field being interactable.
+     */
+    ExpectedCondition<?> readinessCondition();
+}
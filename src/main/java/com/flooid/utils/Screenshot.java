@@ -46,21 +46,25 @@
 package com.flooid.utils;
 
 import com.flooid.engine.Configuration;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.slf4j.LoggerFactory;
 import io.cucumber.java.Scenario;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
-import org.apache.commons.io.FileUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * Utility class for capturing screenshots in Selenium WebDriver tests.
@@ -68,46 +72,109 @@ import java.util.Date;
 public class Screenshot {
 
     private static final Logger log = LoggerFactory.getLogger(Screenshot.class);
-    private static final String PATH = Configuration.getInstance().getProperty("screenshots.path", "target/screenshots");
+    private static final Configuration configuration = Configuration.getInstance();
+    private static final boolean EMBED = !"reference".equalsIgnoreCase(configuration.getProperty("screenshots.attachment", "embed"));
+    private static final Path REPORT_DIRECTORY = htmlReportDirectory();
+    private static final boolean CROP_TO_FAILED_ELEMENT = configuration.getBoolean("screenshots.crop_to_failed_element", false);
+    private static final int CROP_PADDING = 40;
+    private static final String ELEMENT_BOUNDS_SCRIPT =
+            "var r = arguments[0].getBoundingClientRect(); var d = window.devicePixelRatio || 1;" +
+            "return [r.left * d, r.top * d, r.width * d, r.height * d, d];";
 
     /**
-     * Captures a screenshot and saves it to the specified directory with an optional filename.
-     * Attaches the screenshot to the Cucumber scenario report if available.
+     * Captures a screenshot and stores it in the content-addressed {@link ScreenshotStore}.
+     * Attaches the screenshot to the Cucumber scenario report if available: embedded by default, or as a link to the
+     * stored image when {@code screenshots.attachment=reference}.
+     * The screenshot is taken once as bytes and written by a background writer, so this method returns as soon as
+     * the browser has delivered the image.
      *
      * @param driver   The WebDriver instance used to take the screenshot.
      * @param scenario The Cucumber scenario in which the screenshot is being taken.
-     * @param filename The filename for the screenshot.
+     * @param filename The name of the screenshot in the report.
      */
     public static void captureAndSaveScreenshot(WebDriver driver, Scenario scenario, String filename) {
         try {
-            // Ensure the target directory exists
-            Path screenshotDirectory = Paths.get(PATH);
-            Files.createDirectories(screenshotDirectory);
-
-            // Add timestamp to filename to ensure uniqueness
-            String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-            String screenshotFilename = filename + "_" + timestamp + ".png";
+            Rectangle crop = CROP_TO_FAILED_ELEMENT ? failedElementBounds(driver) : null;
 
             // Take a screenshot of the entire page
-            File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+            byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
 
-            // Save the screenshot in the target directory
-            File screenshotFile = new File(screenshotDirectory.toFile(), screenshotFilename);
-            Files.copy(screenshot.toPath(), screenshotFile.toPath());
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("name", filename);
+            if (scenario != null) {
+                metadata.put("scenario", scenario.getName());
+                metadata.put("uri", scenario.getUri().toString());
+                metadata.put("line", scenario.getLine());
+                metadata.put("status", scenario.getStatus().name());
+            }
+            Path storedImage = ScreenshotStore.getInstance().store(screenshot, crop, metadata);
 
             // Attach the screenshot to the Cucumber report if a scenario is provided
             if (scenario != null) {
-                scenario.attach(FileUtils.readFileToByteArray(screenshotFile), "image/png", String.format("%s - %s", screenshotFilename, scenario.getName()));
+                String attachmentName = String.format("%s - %s", filename, scenario.getName());
+                if (EMBED) {
+                    scenario.attach(screenshot, "image/png", attachmentName);
+                } else {
+                    String link = REPORT_DIRECTORY.toAbsolutePath().relativize(storedImage.toAbsolutePath()).toString().replace('\\', '/');
+                    scenario.attach(link, "text/uri-list", attachmentName);
+                }
                 log.info("Screenshot attached to scenario: {}", scenario.getName());
             }
-
-            log.info("Screenshot saved to {}", screenshotFile.getAbsolutePath());
-        } catch (IOException e) {
-            log.error("Could not save screenshot", e);
+        } catch (RuntimeException e) {
+            log.error("Could not capture screenshot", e);
 
             if (scenario != null) {
-                scenario.log("Screenshot could not be saved due to an error.");
+                scenario.log("Screenshot could not be captured due to an error.");
+            }
+        }
+    }
+
+    // Links in the report are resolved against the directory of the HTML report, wherever cucumber.plugin puts it
+    private static Path htmlReportDirectory() {
+        String plugins = configuration.getProperty("cucumber.plugin", null);
+        if (plugins == null) {
+            plugins = readJunitPlatformProperties().getProperty("cucumber.plugin", "");
+        }
+        for (String plugin : plugins.split(",")) {
+            plugin = plugin.trim();
+            if (plugin.startsWith("html:")) {
+                Path parent = Paths.get(plugin.substring("html:".length())).getParent();
+                return parent == null ? Paths.get("") : parent;
             }
         }
+        return Paths.get("target/cucumber-reports");
+    }
+
+    private static Properties readJunitPlatformProperties() {
+        Properties properties = new Properties();
+        try (InputStream input = Screenshot.class.getClassLoader().getResourceAsStream("junit-platform.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read junit-platform.properties", e);
+        }
+        return properties;
+    }
+
+    // Bounds of the element whose last page operation failed, in screenshot pixels and padded for context
+    private static Rectangle failedElementBounds(WebDriver driver) {
+        By locator = PageOperation.takeLastFailedLocator(driver);
+        if (locator == null) {
+            return null;
+        }
+        try {
+            List<?> bounds = (List<?>) ((JavascriptExecutor) driver).executeScript(ELEMENT_BOUNDS_SCRIPT, driver.findElement(locator));
+            double ratio = ((Number) bounds.get(4)).doubleValue();
+            int padding = (int) (CROP_PADDING * ratio);
+            int x = ((Number) bounds.get(0)).intValue() - padding;
+            int y = ((Number) bounds.get(1)).intValue() - padding;
+            int width = ((Number) bounds.get(2)).intValue() + 2 * padding;
+            int height = ((Number) bounds.get(3)).intValue() + 2 * padding;
+            return new Rectangle(Math.max(0, x), Math.max(0, y), height, width);
+        } catch (RuntimeException e) {
+            log.info("Failed element {} could not be located, keeping the full screenshot", locator);
+            return null;
+        }
     }
 }
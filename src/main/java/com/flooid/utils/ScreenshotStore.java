@@ -0,0 +1,147 @@
+package com.flooid.utils;
+
+import com.flooid.engine.Configuration;
+import com.flooid.engine.RunMetrics;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed screenshot store. Every distinct image is stored once under
+ * {@code <screenshots.path>/objects/<first two hash characters>/<sha-256>.png}, optionally cropped to a region and
+ * downscaled to {@code screenshots.max_width}. Each capture is recorded as one JSON line in
+ * {@code <screenshots.path>/index.jsonl}, mapping the scenario to the stored image.
+ */
+public class ScreenshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreenshotStore.class);
+    private static final ScreenshotStore instance = new ScreenshotStore();
+
+    private final Path root;
+    private final Path index;
+    private final int maxWidth;
+    private final Set<String> storedHashes = ConcurrentHashMap.newKeySet();
+    private final ScreenshotWriter writer = ScreenshotWriter.getInstance();
+
+    private ScreenshotStore() {
+        Configuration configuration = Configuration.getInstance();
+        root = Paths.get(configuration.getProperty("screenshots.path", "target/screenshots"));
+        index = root.resolve("index.jsonl");
+        maxWidth = configuration.getInt("screenshots.max_width", 0);
+    }
+
+    public static ScreenshotStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stores a PNG screenshot unless an identical one (same bytes, same crop) is already stored, and records the
+     * capture in the index. Cropping and downscaling happen on the writer thread.
+     *
+     * @param png      The PNG bytes as delivered by the browser.
+     * @param crop     The region to keep, in image pixels, or null to keep the whole image.
+     * @param metadata Describes the capture (scenario, location, status...); written to the index as-is.
+     * @return The path of the stored image.
+     */
+    public Path store(byte[] png, Rectangle crop, Map<String, Object> metadata) {
+        String hash = hash(png, crop);
+        Path image = root.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash + ".png");
+        if (storedHashes.add(hash)) {
+            // Forgotten again when the write does not happen, so the next identical capture is written instead
+            writer.write(image, () -> transform(png, crop), () -> storedHashes.remove(hash));
+        } else {
+            RunMetrics.getInstance().increment("screenshots.deduplicated");
+        }
+
+        Map<String, Object> entry = new LinkedHashMap<>(metadata);
+        entry.put("hash", hash);
+        entry.put("path", root.relativize(image).toString().replace('\\', '/'));
+        entry.put("timestamp", Instant.now().toString());
+        StringBuilder line = new StringBuilder();
+        try (JsonOutput output = new Json().newOutput(line)) {
+            output.setPrettyPrint(false).write(entry);
+        }
+        line.append('\n');
+        writer.append(index, line.toString().getBytes(StandardCharsets.UTF_8));
+        return image;
+    }
+
+    private String hash(byte[] png, Rectangle crop) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(png);
+            if (crop != null) {
+                digest.update(String.format("crop:%d,%d,%d,%d", crop.x, crop.y, crop.width, crop.height).getBytes(StandardCharsets.UTF_8));
+            }
+            if (maxWidth > 0) {
+                digest.update(("max_width:" + maxWidth).getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] transform(byte[] png, Rectangle crop) {
+        if (crop == null && maxWidth <= 0) {
+            return png;
+        }
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image == null) {
+                log.warn("Screenshot is not a readable image, storing it unchanged");
+                return png;
+            }
+            if (crop != null) {
+                int x = clamp(crop.x, 0, image.getWidth() - 1);
+                int y = clamp(crop.y, 0, image.getHeight() - 1);
+                int width = clamp(crop.width, 1, image.getWidth() - x);
+                int height = clamp(crop.height, 1, image.getHeight() - y);
+                image = image.getSubimage(x, y, width, height);
+            }
+            if (maxWidth > 0 && image.getWidth() > maxWidth) {
+                int height = Math.max(1, image.getHeight() * maxWidth / image.getWidth());
+                BufferedImage scaled = new BufferedImage(maxWidth, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = scaled.createGraphics();
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, maxWidth, height, null);
+                graphics.dispose();
+                image = scaled;
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not re-encode screenshot", e);
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
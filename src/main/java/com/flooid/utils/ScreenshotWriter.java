@@ -0,0 +1,226 @@
+package com.flooid.utils;
+
+import com.flooid.engine.Configuration;
+import com.flooid.engine.RunMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Writes screenshot bytes to disk on a bounded background executor so the test thread never waits for the disk.
+ * When the queue is full the configured overflow policy applies:
+ * {@code block} waits for space, {@code caller-runs} writes on the test thread and {@code drop} discards the image.
+ * Pending writes are flushed at the end of the run and from a JVM shutdown hook.
+ */
+public class ScreenshotWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreenshotWriter.class);
+    private static final ScreenshotWriter instance = new ScreenshotWriter();
+
+    private final ThreadPoolExecutor executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private int pendingWrites;
+
+    private ScreenshotWriter() {
+        Configuration configuration = Configuration.getInstance();
+        int threads = configuration.getInt("screenshots.writer.threads", 1);
+        int queueSize = configuration.getInt("screenshots.writer.queue_size", 64);
+        String overflowPolicy = configuration.getProperty("screenshots.writer.overflow_policy", "block").toLowerCase();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                overflowHandler(overflowPolicy));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(Duration.ofSeconds(30)), "screenshot-writer-flush"));
+    }
+
+    public static ScreenshotWriter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queues the bytes to be written to the given file. Returns as soon as the write is queued.
+     *
+     * @param file  The file to create.
+     * @param bytes The file content; must not be modified after the call.
+     */
+    public void write(Path file, byte[] bytes) {
+        write(file, () -> bytes);
+    }
+
+    /**
+     * Queues a new file whose content is produced on the writer thread, e.g. after re-encoding an image.
+     * Nothing is written if the file already exists.
+     *
+     * @param file    The file to create.
+     * @param content Produces the file content when the write runs.
+     */
+    public void write(Path file, Supplier<byte[]> content) {
+        write(file, content, () -> { });
+    }
+
+    /**
+     * Queues a new file whose content is produced on the writer thread, and reports when it is not written.
+     * Nothing is written if the file already exists.
+     *
+     * @param file      The file to create.
+     * @param content   Produces the file content when the write runs.
+     * @param onFailure Runs when the write is dropped from a full queue or fails.
+     */
+    public void write(Path file, Supplier<byte[]> content, Runnable onFailure) {
+        submit(new WriteTask(file, content, onFailure, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Queues bytes to be appended to the given file, creating it if needed.
+     *
+     * @param file  The file to append to.
+     * @param bytes The bytes to append; must not be modified after the call.
+     */
+    public void append(Path file, byte[] bytes) {
+        submit(new WriteTask(file, () -> bytes, () -> { }, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    private void submit(WriteTask task) {
+        lock.lock();
+        try {
+            pendingWrites++;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Waits until every queued write has completed.
+     *
+     * @param timeout The maximum time to wait.
+     * @return True if all writes completed, false if the timeout elapsed first.
+     */
+    public boolean flush(Duration timeout) {
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (pendingWrites > 0) {
+                if (remainingNanos <= 0) {
+                    log.warn("{} screenshot write(s) still pending after {}", pendingWrites, timeout);
+                    return false;
+                }
+                remainingNanos = drained.awaitNanos(remainingNanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void completed() {
+        lock.lock();
+        try {
+            if (--pendingWrites == 0) {
+                drained.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RejectedExecutionHandler overflowHandler(String overflowPolicy) {
+        switch (overflowPolicy) {
+            case "block":
+                return (task, pool) -> {
+                    try {
+                        pool.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        discard(task);
+                    }
+                };
+            case "caller-runs":
+                return (task, pool) -> task.run();
+            case "drop":
+                return (task, pool) -> discard(task);
+            default:
+                throw new IllegalArgumentException("Invalid screenshot writer overflow policy: " + overflowPolicy);
+        }
+    }
+
+    private void discard(Runnable task) {
+        WriteTask writeTask = (WriteTask) task;
+        log.warn("Screenshot write queue is full, dropping {}", writeTask.file);
+        RunMetrics.getInstance().increment("screenshots.dropped");
+        try {
+            writeTask.onFailure.run();
+        } finally {
+            completed();
+        }
+    }
+
+    private class WriteTask implements Runnable {
+        private final Path file;
+        private final Supplier<byte[]> content;
+        private final Runnable onFailure;
+        private final OpenOption[] options;
+
+        private WriteTask(Path file, Supplier<byte[]> content, Runnable onFailure, OpenOption... options) {
+            this.file = file;
+            this.content = content;
+            this.onFailure = onFailure;
+            this.options = options;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (Arrays.asList(options).contains(StandardOpenOption.CREATE_NEW) && Files.exists(file)) {
+                    log.debug("{} already exists, not writing it again", file);
+                    return;
+                }
+                Files.createDirectories(file.getParent());
+                byte[] bytes = content.get();
+                try (FileChannel channel = FileChannel.open(file, options)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                RunMetrics.getInstance().add("screenshots.bytes_written", bytes.length);
+                log.debug("Wrote {}", file.toAbsolutePath());
+            } catch (FileAlreadyExistsException e) {
+                log.debug("{} already exists, not writing it again", file);
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not save screenshot {}", file, e);
+                onFailure.run();
+            } finally {
+                completed();
+            }
+        }
+    }
+}
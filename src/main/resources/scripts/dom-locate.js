@@ -0,0 +1,49 @@
+// Locator helpers shared by the page scripts, prepended to them when they are loaded.
+// using/value are the W3C locator strategy and value of a Selenium By.
+
+function findAll(using, value) {
+    switch (using) {
+        case 'css selector':
+            return Array.prototype.slice.call(document.querySelectorAll(value));
+        case 'xpath':
+            var snapshot = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+            var nodes = [];
+            for (var i = 0; i < snapshot.snapshotLength; i++) {
+                nodes.push(snapshot.snapshotItem(i));
+            }
+            return nodes;
+        case 'id':
+            return Array.prototype.slice.call(document.querySelectorAll('[id="' + value.replace(/"/g, '\\"') + '"]'));
+        case 'name':
+            return Array.prototype.slice.call(document.getElementsByName(value));
+        case 'class name':
+            return Array.prototype.slice.call(document.getElementsByClassName(value));
+        case 'tag name':
+            return Array.prototype.slice.call(document.getElementsByTagName(value));
+        case 'link text':
+        case 'partial link text':
+            return Array.prototype.slice.call(document.getElementsByTagName('a')).filter(function (link) {
+                var text = link.textContent.trim();
+                return using === 'link text' ? text === value : text.indexOf(value) >= 0;
+            });
+        default:
+            throw new Error('Unsupported locator strategy: ' + using);
+    }
+}
+
+function isVisible(element) {
+    if (!element || !element.isConnected) {
+        return false;
+    }
+    var style = window.getComputedStyle(element);
+    return style.display !== 'none' && style.visibility !== 'hidden' && style.opacity !== '0'
+        && element.getClientRects().length > 0;
+}
+
+function attribute(element, name) {
+    var property = element[name];
+    if (property !== undefined && property !== null && typeof property !== 'object' && typeof property !== 'function') {
+        return String(property);
+    }
+    return element.getAttribute(name);
+}
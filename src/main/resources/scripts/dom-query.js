@@ -0,0 +1,26 @@
+// Resolves a batch of locator queries in a single round trip.
+// arguments[0]: [{name, type, using, value, attribute}] where type is text, visible, attribute or count
+// and using/value are the W3C locator strategy and value of the Selenium By. Uses the helpers of dom-locate.js.
+// Returns {name: result} with null text/attribute values for elements that are not on the page.
+var queries = arguments[0];
+
+var results = {};
+queries.forEach(function (query) {
+    var elements = findAll(query.using, query.value);
+    var first = elements.length > 0 ? elements[0] : null;
+    switch (query.type) {
+        case 'text':
+            results[query.name] = first && isVisible(first) ? first.innerText.trim() : null;
+            break;
+        case 'visible':
+            results[query.name] = isVisible(first);
+            break;
+        case 'attribute':
+            results[query.name] = first ? attribute(first, query.attribute) : null;
+            break;
+        case 'count':
+            results[query.name] = elements.length;
+            break;
+    }
+});
+return results;
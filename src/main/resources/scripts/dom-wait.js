@@ -0,0 +1,76 @@
+// Waits in the page until a condition on a locator holds, re-checking on every DOM mutation instead of on every
+// WebDriver round trip. Uses the helpers of dom-locate.js.
+// arguments[0]: {type, using, value, text} where type is visible, hidden or text (visible with exactly that text)
+// arguments[1]: timeout in milliseconds
+// Calls back with {satisfied, text}, text being the visible text of the first matching element when the wait ended,
+// or with {error} if the locator cannot be evaluated.
+var condition = arguments[0];
+var timeoutMs = arguments[1];
+var callback = arguments[arguments.length - 1];
+var done = false;
+var scheduled = false;
+var observer = null;
+var poller = null;
+var timer = null;
+
+function evaluate() {
+    var elements = findAll(condition.using, condition.value);
+    var first = elements.length > 0 ? elements[0] : null;
+    var text = first && isVisible(first) ? first.innerText.trim() : null;
+    switch (condition.type) {
+        case 'visible':
+            return {satisfied: text !== null, text: text};
+        case 'hidden':
+            return {satisfied: text === null, text: text};
+        case 'text':
+            return {satisfied: text === condition.text, text: text};
+        default:
+            throw new Error('Unsupported wait condition: ' + condition.type);
+    }
+}
+
+function finish(result) {
+    if (done) {
+        return;
+    }
+    done = true;
+    if (observer) {
+        observer.disconnect();
+    }
+    clearInterval(poller);
+    clearTimeout(timer);
+    callback(result);
+}
+
+function check(final) {
+    scheduled = false;
+    if (done) {
+        return;
+    }
+    try {
+        var result = evaluate();
+        if (result.satisfied || final) {
+            finish(result);
+        }
+    } catch (e) {
+        finish({error: String(e)});
+    }
+}
+
+// A burst of mutations is checked once, after the current task
+function schedule() {
+    if (!scheduled) {
+        scheduled = true;
+        Promise.resolve().then(function () { check(false); });
+    }
+}
+
+check(false);
+if (!done) {
+    observer = new MutationObserver(schedule);
+    observer.observe(document.documentElement || document,
+        {childList: true, subtree: true, attributes: true, characterData: true});
+    // Visibility can also change without a DOM mutation (stylesheets, animations, layout); re-check now and then
+    poller = setInterval(schedule, 250);
+    timer = setTimeout(function () { check(true); }, timeoutMs);
+}
@@ -0,0 +1,164 @@
+package com.flooid.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GridRouterTest {
+
+    private static final ImmutableCapabilities CHROME = new ImmutableCapabilities("browserName", "chrome");
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    @AfterEach
+    void close() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void routesToTheGridWithTheMostUnclaimedSlotsThenToTheFastestOne() throws Exception {
+        StandInGrid slow = grid(StandInGrid.hub(2, 0).withStatusDelay(Duration.ofMillis(200)));
+        StandInGrid fast = grid(StandInGrid.hub(1, 3));
+        GridRouter router = router(4, slow, fast);
+
+        // slow has 2 free slots, fast 1
+        router.createSession(CHROME);
+        assertEquals(List.of(1, 0), sessionRequests(slow, fast));
+
+        // One slot of slow is claimed: 1 unclaimed slot each, fast answers first
+        router.createSession(CHROME);
+        assertEquals(List.of(1, 1), sessionRequests(slow, fast));
+
+        router.createSession(CHROME);
+        assertEquals(List.of(2, 1), sessionRequests(slow, fast));
+    }
+
+    @Test
+    void triesTheNextGridAndMarksTheFailedOneUnhealthyUntilItsNextPoll() throws Exception {
+        StandInGrid failing = grid(StandInGrid.hub(3, 0).failingSessions(true));
+        StandInGrid working = grid(StandInGrid.hub(1, 0));
+        GridRouter router = router(4, failing, working);
+        assertEquals(4, router.getCapacity());
+
+        WebDriver driver = router.createSession(CHROME);
+
+        assertEquals(List.of(1, 1), sessionRequests(failing, working));
+        assertEquals(1, router.getCapacity());
+        // Healthy grids come first, whatever their free slots
+        router.createSession(CHROME);
+        assertEquals(List.of(1, 2), sessionRequests(failing, working));
+
+        router.pollStatus();
+        assertEquals(4, router.getCapacity());
+        driver.quit();
+    }
+
+    @Test
+    void claimsTheSlotOnTheGridThatCreatedTheSessionAfterAFailure() throws Exception {
+        StandInGrid failing = grid(StandInGrid.hub(3, 0).failingSessions(true));
+        StandInGrid slow = grid(StandInGrid.hub(2, 0).withStatusDelay(Duration.ofMillis(200)));
+        StandInGrid fast = grid(StandInGrid.hub(1, 0));
+        GridRouter router = router(4, failing, slow, fast);
+
+        // failing has the most free slots, slow the most after it
+        router.createSession(CHROME);
+        assertEquals(List.of(1, 1, 0), sessionRequests(failing, slow, fast));
+
+        // One slot of slow is claimed: 1 unclaimed slot each, fast answers first
+        router.createSession(CHROME);
+        assertEquals(List.of(1, 1, 1), sessionRequests(failing, slow, fast));
+    }
+
+    @Test
+    void failsWhenNoGridCanCreateTheSession() throws Exception {
+        StandInGrid failing = grid(StandInGrid.hub(1, 0).failingSessions(true));
+        GridRouter router = router(1, failing);
+
+        assertThrows(IllegalStateException.class, () -> router.createSession(CHROME));
+    }
+
+    @Test
+    void limitsTheSessionsBeingCreatedAtTheSameTime() throws Exception {
+        StandInGrid grid = grid(StandInGrid.hub(8, 0).withSessionDelay(Duration.ofMillis(100)));
+        GridRouter router = router(2, grid);
+        ExecutorService scenarios = Executors.newFixedThreadPool(6);
+        resources.add(scenarios::shutdownNow);
+
+        List<Future<WebDriver>> sessions = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            sessions.add(scenarios.submit(() -> router.createSession(CHROME)));
+        }
+        for (Future<WebDriver> session : sessions) {
+            session.get();
+        }
+
+        assertEquals(6, grid.sessionRequests());
+        assertEquals(2, grid.maxPendingSessionRequests());
+    }
+
+    @Test
+    void countsAStandaloneServerAsOneSlot() throws Exception {
+        GridRouter router = router(1, grid(StandInGrid.standalone()));
+
+        assertEquals(1, router.getCapacity());
+    }
+
+    @Test
+    void countsTheSlotsOfNodesThatAreUp() {
+        Map<String, Object> value = Map.of("ready", true, "nodes", List.of(
+                Map.of("availability", "UP", "slots", List.of(Map.of(), Map.of("session", Map.of()), Map.of())),
+                Map.of("availability", "DRAINING", "slots", List.of(Map.of(), Map.of())),
+                Map.of("availability", "UP")));
+
+        assertEquals(3, GridRouter.countSlots(value, true, false));
+        assertEquals(2, GridRouter.countSlots(value, true, true));
+    }
+
+    @Test
+    void countsNoSlotsOfAStandaloneServerThatIsNotReady() {
+        Map<String, Object> value = Map.of("ready", false, "message", "Starting");
+
+        assertEquals(0, GridRouter.countSlots(value, false, false));
+        assertEquals(1, GridRouter.countSlots(Map.of("ready", true), true, true));
+    }
+
+    private StandInGrid grid(StandInGrid grid) {
+        resources.add(grid);
+        return grid;
+    }
+
+    private GridRouter router(int maxPendingSessions, StandInGrid... grids) {
+        List<URL> urls = new ArrayList<>();
+        for (StandInGrid grid : grids) {
+            urls.add(grid.url());
+        }
+        // Polled once on creation; the tests poll again explicitly
+        GridRouter router = new GridRouter(urls, ClientConfig.defaultConfig(), maxPendingSessions, Duration.ofHours(1));
+        resources.add(0, router::shutdown);
+        return router;
+    }
+
+    private static List<Integer> sessionRequests(StandInGrid... grids) {
+        List<Integer> requests = new ArrayList<>();
+        for (StandInGrid grid : grids) {
+            requests.add(grid.sessionRequests());
+        }
+        return requests;
+    }
+}
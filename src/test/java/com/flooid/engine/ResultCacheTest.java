@@ -0,0 +1,68 @@
+package com.flooid.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCacheTest {
+
+    private static final URI FEATURE = URI.create("classpath:engine-fixtures/ScenarioThreads.feature");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergesTheResultsOfRunsSharingTheCacheFile() {
+        ResultCache first = cache(true);
+        ResultCache second = cache(true);
+        first.recordResult(FEATURE, 9, true);
+        second.recordResult(FEATURE, 10, true);
+
+        first.save();
+        second.save();
+
+        ResultCache next = cache(true);
+        assertTrue(next.findCachedPass(FEATURE, 9).isPresent());
+        assertTrue(next.findCachedPass(FEATURE, 10).isPresent());
+    }
+
+    @Test
+    void removesTheCachedPassOfAScenarioThatFailed() {
+        ResultCache first = cache(true);
+        first.recordResult(FEATURE, 9, true);
+        first.recordResult(FEATURE, 10, true);
+        first.save();
+
+        ResultCache second = cache(true);
+        second.recordResult(FEATURE, 9, false);
+        second.save();
+
+        ResultCache next = cache(true);
+        assertFalse(next.findCachedPass(FEATURE, 9).isPresent());
+        assertTrue(next.findCachedPass(FEATURE, 10).isPresent());
+    }
+
+    @Test
+    void recordsNothingOutsideIncrementalMode() {
+        ResultCache cache = cache(false);
+        cache.recordResult(FEATURE, 9, true);
+        cache.save();
+
+        assertFalse(Files.exists(directory.resolve("scenario-cache.json")));
+    }
+
+    private ResultCache cache(boolean enabled) {
+        Properties properties = new Properties();
+        properties.setProperty("incremental.enabled", Boolean.toString(enabled));
+        properties.setProperty("incremental.cache.path", directory.resolve("scenario-cache.json").toString());
+        return new ResultCache(new Configuration(properties, Map.of()));
+    }
+}
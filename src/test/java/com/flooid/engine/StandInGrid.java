@@ -0,0 +1,162 @@
+package com.flooid.engine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Selenium Grid stand-in for router tests: answers {@code GET /status} with a hub status of nodes and slots, and
+ * {@code POST /session} with a W3C new-session response or, when told to, a session-not-created error. Status and
+ * session responses can be delayed; the number of sessions requested, and of session requests in flight at the
+ * same time, are recorded.
+ */
+class StandInGrid implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger sessionRequests = new AtomicInteger();
+    private final AtomicInteger pendingSessionRequests = new AtomicInteger();
+    private final AtomicInteger maxPendingSessionRequests = new AtomicInteger();
+    private volatile Map<String, Object> status;
+    private volatile Duration statusDelay = Duration.ZERO;
+    private volatile Duration sessionDelay = Duration.ZERO;
+    private volatile boolean failSessions;
+
+    private StandInGrid(Map<String, Object> status) throws IOException {
+        this.status = status;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * A ready hub with one node that has the given numbers of free and busy slots.
+     */
+    static StandInGrid hub(int freeSlots, int busySlots) throws IOException {
+        return new StandInGrid(hubStatus(freeSlots, busySlots));
+    }
+
+    /**
+     * A ready standalone server, which reports no nodes.
+     */
+    static StandInGrid standalone() throws IOException {
+        return new StandInGrid(Map.of("value", Map.of("ready", true, "message", "Selenium Grid ready.")));
+    }
+
+    static Map<String, Object> hubStatus(int freeSlots, int busySlots) {
+        List<Map<String, Object>> slots = new ArrayList<>();
+        for (int i = 0; i < freeSlots + busySlots; i++) {
+            slots.add(i < busySlots ? Map.of("session", Map.of("sessionId", "busy-" + i)) : Map.of());
+        }
+        Map<String, Object> node = Map.of("availability", "UP", "slots", slots);
+        return Map.of("value", Map.of("ready", true, "message", "Selenium Grid ready.", "nodes", List.of(node)));
+    }
+
+    StandInGrid withStatusDelay(Duration delay) {
+        this.statusDelay = delay;
+        return this;
+    }
+
+    StandInGrid withSessionDelay(Duration delay) {
+        this.sessionDelay = delay;
+        return this;
+    }
+
+    StandInGrid failingSessions(boolean fail) {
+        this.failSessions = fail;
+        return this;
+    }
+
+    URL url() {
+        try {
+            return new URL("http://127.0.0.1:" + server.getAddress().getPort());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int sessionRequests() {
+        return sessionRequests.get();
+    }
+
+    int maxPendingSessionRequests() {
+        return maxPendingSessionRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(exchange.getRequestMethod()) && path.endsWith("/status")) {
+                sleep(statusDelay);
+                respond(exchange, 200, status);
+            } else if ("POST".equals(exchange.getRequestMethod()) && path.endsWith("/session")) {
+                exchange.getRequestBody().readAllBytes();
+                newSession(exchange);
+            } else {
+                respond(exchange, 200, Map.of("value", Map.of()));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void newSession(HttpExchange exchange) throws IOException {
+        sessionRequests.incrementAndGet();
+        int pending = pendingSessionRequests.incrementAndGet();
+        maxPendingSessionRequests.accumulateAndGet(pending, Math::max);
+        try {
+            sleep(sessionDelay);
+        } finally {
+            pendingSessionRequests.decrementAndGet();
+        }
+        if (failSessions) {
+            respond(exchange, 500, Map.of("value", Map.of("error", "session not created",
+                    "message", "Stand-in grid refuses new sessions", "stacktrace", "")));
+        } else {
+            respond(exchange, 200, Map.of("value", Map.of("sessionId", UUID.randomUUID().toString(),
+                    "capabilities", Map.of("browserName", "chrome"))));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = new Json().toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        if (delay.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.flooid.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebDriverPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger maxLive = new AtomicInteger();
+    private final List<WebDriver> quit = new CopyOnWriteArrayList<>();
+    private final CountDownLatch quitting = new CountDownLatch(1);
+    private final AtomicBoolean retire = new AtomicBoolean();
+    private WebDriverPool pool;
+
+    @AfterEach
+    void shutdown() {
+        quitting.countDown();
+        pool.shutdown();
+    }
+
+    @Test
+    void startsTheReplacementOfAnEvictedSessionOnlyOnceItHasQuit() throws Exception {
+        pool = pool(1, this::quitSlowly);
+        WebDriver evicted = pool.lease();
+        retire.set(true);
+        pool.release(evicted);
+        retire.set(false);
+
+        CompletableFuture<WebDriver> replacement = CompletableFuture.supplyAsync(pool::lease);
+        Thread.sleep(200);
+        assertEquals(1, created.get());
+        assertFalse(replacement.isDone());
+
+        quitting.countDown();
+        replacement.get(5, TimeUnit.SECONDS);
+        assertEquals(2, created.get());
+        assertEquals(1, maxLive.get());
+    }
+
+    @Test
+    void quitsIdleSessionsOnShutdownAndLeasedOnesOnRelease() throws InterruptedException {
+        pool = pool(2, this::quit);
+        pool.prewarm();
+        while (created.get() < 2) {
+            Thread.sleep(10);
+        }
+        WebDriver leased = pool.lease();
+
+        pool.shutdown();
+        assertEquals(1, quit.size());
+        assertFalse(quit.contains(leased));
+
+        pool.release(leased);
+        assertTrue(quit.contains(leased));
+        assertEquals(0, live.get());
+    }
+
+    private WebDriverPool pool(int size, Consumer<WebDriver> disposer) {
+        return new WebDriverPool(this::start, disposer, driver -> retire.get(), size, Duration.ofHours(1),
+                Duration.ofSeconds(5), true);
+    }
+
+    private WebDriver start() {
+        created.incrementAndGet();
+        maxLive.accumulateAndGet(live.incrementAndGet(), Math::max);
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "WebDriverPoolTest driver";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private void quit(WebDriver driver) {
+        quit.add(driver);
+        live.decrementAndGet();
+    }
+
+    private void quitSlowly(WebDriver driver) {
+        try {
+            quitting.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        quit(driver);
+    }
+}
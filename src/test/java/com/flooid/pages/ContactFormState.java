@@ -0,0 +1,52 @@
+package com.flooid.pages;
+
+/**
+ * Snapshot of the contact form's validation state, read in a single call by {@link ContactPage#readValidationState()}.
+ */
+public class ContactFormState {
+
+    private final String emailAddress;
+    private final String errorMessage;
+    private final long errorMessageCount;
+
+    public ContactFormState(String emailAddress, String errorMessage, long errorMessageCount) {
+        this.emailAddress = emailAddress;
+        this.errorMessage = errorMessage;
+        this.errorMessageCount = errorMessageCount;
+    }
+
+    /**
+     * @return The current value of the email address field.
+     */
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    /**
+     * @return The visible error message for the email address, or null if none is displayed.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isErrorMessageDisplayed() {
+        return errorMessage != null && !errorMessage.isEmpty();
+    }
+
+    public boolean isErrorMessageDisplayed(String expectedMessage) {
+        return expectedMessage.equals(errorMessage);
+    }
+
+    /**
+     * @return The number of validation message elements rendered for the email address, visible or not.
+     */
+    public long getErrorMessageCount() {
+        return errorMessageCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactFormState{emailAddress='" + emailAddress + "', errorMessage='" + errorMessage +
+                "', errorMessageCount=" + errorMessageCount + "}";
+    }
+}
@@ -54,29 +54,50 @@
 package com.flooid.pages;
 
 import com.flooid.engine.Configuration;
+import com.flooid.engine.WebDriverFactory;
+import com.flooid.utils.DomQuery;
 import com.flooid.utils.PageOperation;
+import com.flooid.utils.ReadinessAware;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Keys;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
 
-public class ContactPage {
+public class ContactPage implements ReadinessAware {
 
     private final WebDriver driver;
     private final PageOperation pageOperation;
     private static final Configuration configuration = Configuration.getInstance();
-    private final String URL = configuration.getProperty("application.contact.page.url");
+    private final String URL =
+            WebDriverFactory.getInstance().resolveUrl(configuration.getProperty("application.contact.page.url"));
     private static final Logger logger = LoggerFactory.getLogger(ContactPage.class);
 
+    // Resets the form owning the email field and reports whether any validation state survived the reset
+    private static final String RESET_FORM_SCRIPT =
+            "var field = document.getElementsByName('yourEmail')[0];" +
+            "if (!field || !field.form) { return false; }" +
+            "field.form.reset();" +
+            "field.dispatchEvent(new Event('input', { bubbles: true }));" +
+            "field.dispatchEvent(new Event('change', { bubbles: true }));" +
+            "if (document.activeElement) { document.activeElement.blur(); }" +
+            "var alerts = document.querySelectorAll(\"div[class*='email-container'] div[role='alert'] div\");" +
+            "for (var i = 0; i < alerts.length; i++) {" +
+            "  if (alerts[i].offsetParent !== null && alerts[i].textContent.trim() !== '') { return false; }" +
+            "}" +
+            "return field.value === '';";
+
     // Page objects
     private final By emailAddressTextField = By.name("yourEmail");
     private final By emailAddressErrorMessageLabel = By.xpath("//div[contains(@class,'email-container')]" +
             "//div[@role='alert']//div");
-    private final By validEmailAddressErrorMessageLabel = By.xpath("//div[contains(@class,'email-container')]" +
-            "//div[@role='alert']//div[text()='Please enter a valid email address!']");
+    private static final String INVALID_EMAIL_ADDRESS_MESSAGE = "Please enter a valid email address!";
+    private final By invalidEmailAddressErrorMessageLabel = By.xpath("//div[contains(@class,'email-container')]" +
+            "//div[@role='alert']//div[normalize-space(.)='" + INVALID_EMAIL_ADDRESS_MESSAGE + "']");
 
     public ContactPage(WebDriver driver) {
         this.driver = driver;
@@ -92,6 +113,17 @@ public class ContactPage {
         return pageOperation.currentUrlToBe(URL);
     }
 
+    /**
+     * The contact page is usable as soon as the email address field can be typed into, whether or not images,
+     * fonts and third-party scripts have finished loading.
+     *
+     * @return A condition that holds once the email address text field is interactable.
+     */
+    @Override
+    public ExpectedCondition<?> readinessCondition() {
+        return ExpectedConditions.elementToBeClickable(emailAddressTextField);
+    }
+
     // Actions
 
     /**
@@ -118,6 +150,16 @@ public class ContactPage {
         return pageOperation.getText(emailAddressErrorMessageLabel);
     }
 
+    /**
+     * Waits for a validation message to be displayed for the email address.
+     *
+     * @return True if a validation message is displayed, false if none appeared in time.
+     */
+    public boolean isErrorMessageDisplayed() {
+        logger.info("Waiting for an error message for the email address");
+        return pageOperation.isDisplayed(emailAddressErrorMessageLabel);
+    }
+
     /**
      * Checks if the error message for an invalid email address is not displayed.
      *
@@ -125,7 +167,31 @@ public class ContactPage {
      */
     public boolean isErrorMessageNotDisplayed() {
         logger.info("Checking if error message for invalid email address is not displayed");
-        return pageOperation.isNotDisplayed(validEmailAddressErrorMessageLabel);
+        return pageOperation.isNotDisplayed(invalidEmailAddressErrorMessageLabel);
+    }
+
+    /**
+     * Reads the email field value and its validation message in a single script call.
+     *
+     * @return The current validation state of the form.
+     */
+    public ContactFormState readValidationState() {
+        DomQuery.Result result = pageOperation.read(pageOperation.query()
+                .attribute("emailAddress", emailAddressTextField, "value")
+                .text("errorMessage", emailAddressErrorMessageLabel)
+                .count("errorMessageCount", emailAddressErrorMessageLabel));
+        return new ContactFormState(result.getAttribute("emailAddress"), result.getText("errorMessage"),
+                result.getCount("errorMessageCount"));
+    }
+
+    /**
+     * Resets the contact form in place: clears the fields and checks that no validation message is left.
+     *
+     * @return True if the form is back in its initial state, false if the page needs a full reload.
+     */
+    public boolean resetForm() {
+        logger.info("Resetting contact form in place");
+        return Boolean.TRUE.equals(pageOperation.executeScript(RESET_FORM_SCRIPT));
     }
 
     /**
@@ -0,0 +1,78 @@
+package com.flooid.pages;
+
+import com.flooid.engine.Configuration;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContactPageTest {
+
+    private final List<String> commands = new ArrayList<>();
+
+    @Test
+    void readsTheWholeValidationStateInOneScriptCall() {
+        ContactPage page = new ContactPage(driver(Map.of(
+                "emailAddress", "not-an-email",
+                "errorMessage", "Please enter a valid email address!",
+                "errorMessageCount", 1L)));
+        commands.clear();
+
+        ContactFormState state = page.readValidationState();
+
+        assertEquals(List.of("executeScript"), commands);
+        assertEquals("not-an-email", state.getEmailAddress());
+        assertEquals(1, state.getErrorMessageCount());
+        assertTrue(state.isErrorMessageDisplayed("Please enter a valid email address!"));
+    }
+
+    @Test
+    void reportsNoErrorMessageWhenTheLabelIsHidden() {
+        Map<String, Object> hidden = new HashMap<>();
+        hidden.put("emailAddress", "someone@example.com");
+        hidden.put("errorMessage", null);
+        hidden.put("errorMessageCount", 1L);
+        ContactPage page = new ContactPage(driver(hidden));
+
+        ContactFormState state = page.readValidationState();
+
+        assertNull(state.getErrorMessage());
+        assertFalse(state.isErrorMessageDisplayed());
+        assertEquals(1, state.getErrorMessageCount());
+    }
+
+    /**
+     * A driver already on the contact page, answering every script with the given query results.
+     */
+    private WebDriver driver(Map<String, Object> scriptResult) {
+        String url = Configuration.getInstance().getProperty("application.contact.page.url");
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    commands.add(method.getName());
+                    switch (method.getName()) {
+                        case "getCurrentUrl":
+                            return url;
+                        case "executeScript":
+                            return scriptResult;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "ContactPageTest driver";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -1,6 +1,8 @@
 package com.flooid.pages;
 
 import com.flooid.engine.Configuration;
+import com.flooid.engine.RunMetrics;
+import com.flooid.engine.WebDriverFactory;
 import com.flooid.utils.PageOperation;
 import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
@@ -18,14 +20,28 @@ public class NewPage {
     }
 
     /**
-     * Navigates to the Contact Us page.
+     * Navigates to the Contact Us page. With soft reset enabled, a session that is still on the Contact Us page
+     * from the previous scenario gets its form reset in place and is only reloaded if the reset check fails.
      *
      * @return a new instance of ContactPage.
      */
     public ContactPage navigateToContactUsPage() {
-        String URL = Configuration.getInstance().getProperty("application.contact.page.url");
+        String URL = WebDriverFactory.getInstance()
+                .resolveUrl(Configuration.getInstance().getProperty("application.contact.page.url"));
+        RunMetrics metrics = RunMetrics.getInstance();
+        if (WebDriverFactory.getInstance().isSoftResetEnabled() && URL.equals(driver.getCurrentUrl())) {
+            ContactPage contactPage = new ContactPage(driver);
+            if (contactPage.resetForm()) {
+                logger.info("Contact Us page reset in place, navigation avoided");
+                metrics.increment("navigation.avoided");
+                return contactPage;
+            }
+            logger.info("Contact Us page reset check failed, reloading");
+            metrics.increment("navigation.soft_reset_failed");
+        }
         logger.info("Navigating to Contact Us page: {}", URL);
-        driver.get(URL);
-        return new ContactPage(driver);
+        ContactPage contactPage = pageOperation.navigateTo(URL, ContactPage::new);
+        metrics.increment("navigation.full");
+        return contactPage;
     }
 }
@@ -0,0 +1,94 @@
+package com.flooid.runner;
+
+import com.flooid.engine.Configuration;
+import com.flooid.engine.WebDriverFactory;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * Parallel execution strategy sizing the worker pool to the Selenium Grid instead of to the CPU cores: in remote
+ * execution, workers spend nearly all their time waiting on the grid, so there is one worker per session slot of the
+ * healthy grids, up to {@code webdriver.remote_grid.max_parallelism}. The pool never grows beyond that, so it is
+ * also the cap on concurrent sessions. In local execution, or when no grid reports ready, the fixed parallelism is
+ * used.
+ * <p>
+ * Enable it with the {@code grid-capacity} Maven profile.
+ */
+public class GridCapacityParallelism implements ParallelExecutionConfigurationStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridCapacityParallelism.class);
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    @Override
+    public ParallelExecutionConfiguration createConfiguration(ConfigurationParameters configurationParameters) {
+        return new Parallelism(scenarioLimit(configurationParameters));
+    }
+
+    /**
+     * Returns the number of scenarios to run at the same time: the grid capacity in remote execution, otherwise the
+     * fixed parallelism.
+     *
+     * @param configurationParameters The parallel execution settings, without their {@code parallel.config.} prefix.
+     */
+    static int scenarioLimit(ConfigurationParameters configurationParameters) {
+        int fixedParallelism = configurationParameters.get("fixed.parallelism", Integer::valueOf)
+                .orElse(Runtime.getRuntime().availableProcessors());
+        int maxParallelism = Configuration.getInstance().getInt("webdriver.remote_grid.max_parallelism", 64);
+        OptionalInt capacity = WebDriverFactory.getInstance().getGridCapacity();
+        int parallelism;
+        if (capacity.isPresent() && capacity.getAsInt() > 0) {
+            parallelism = Math.min(capacity.getAsInt(), maxParallelism);
+            logger.info("Running {} scenario(s) in parallel for a grid capacity of {} session(s)", parallelism,
+                    capacity.getAsInt());
+        } else {
+            parallelism = fixedParallelism;
+            logger.info("No grid capacity available, running {} scenario(s) in parallel", parallelism);
+        }
+        return parallelism;
+    }
+
+    private static class Parallelism implements ParallelExecutionConfiguration {
+        private final int parallelism;
+
+        private Parallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        @Override
+        public int getMinimumRunnable() {
+            return parallelism;
+        }
+
+        @Override
+        public int getMaxPoolSize() {
+            return parallelism;
+        }
+
+        @Override
+        public int getCorePoolSize() {
+            return parallelism;
+        }
+
+        @Override
+        public int getKeepAliveSeconds() {
+            return KEEP_ALIVE_SECONDS;
+        }
+
+        @Override
+        public Predicate<? super ForkJoinPool> getSaturatePredicate() {
+            return pool -> true;
+        }
+    }
+}
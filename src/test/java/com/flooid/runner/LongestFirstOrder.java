@@ -0,0 +1,59 @@
+package com.flooid.runner;
+
+import com.flooid.reporting.TimingDatabasePlugin;
+import org.junit.platform.engine.TestDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders discovered scenarios so the longest expected ones start first and the parallel workers finish at about the
+ * same time, instead of a slow scenario starting last and running alone. Expected durations come from the
+ * {@link com.flooid.reporting.TimingDatabase}; new scenarios are expected to take the median known duration.
+ * Containers (features, outlines, examples) are ordered by their longest scenario.
+ * <p>
+ * Used by {@link SchedulingCucumberEngine} during discovery with {@code scenario.order=longest_first}.
+ */
+final class LongestFirstOrder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LongestFirstOrder.class);
+
+    private LongestFirstOrder() {
+    }
+
+    /**
+     * Orders a discovered tree by the durations of the timing database.
+     */
+    static void apply(TestDescriptor root) {
+        ShardPlanner planner = new ShardPlanner(TimingDatabasePlugin.timingDatabase().getDurations());
+        Duration longest = reorder(root, planner);
+        logger.info("Ordered scenarios longest first, longest expected {}ms", longest.toMillis());
+    }
+
+    /**
+     * Orders the children of a descriptor, recursively, and returns the longest expected duration below it.
+     */
+    static Duration reorder(TestDescriptor descriptor, ShardPlanner planner) {
+        if (descriptor.isTest()) {
+            return ScenarioDurations.keyOf(descriptor).map(planner::estimate).orElse(Duration.ZERO);
+        }
+        Map<TestDescriptor, Duration> longest = new IdentityHashMap<>();
+        for (TestDescriptor child : new ArrayList<>(descriptor.getChildren())) {
+            longest.put(child, reorder(child, planner));
+        }
+        List<TestDescriptor> children = new ArrayList<>(descriptor.getChildren());
+        // Stable sort, so children with the same estimate keep the feature file order
+        children.sort(Comparator.comparing((TestDescriptor child) -> longest.get(child)).reversed());
+        for (TestDescriptor child : children) {
+            descriptor.removeChild(child);
+            descriptor.addChild(child);
+        }
+        return longest.values().stream().max(Comparator.naturalOrder()).orElse(Duration.ZERO);
+    }
+}
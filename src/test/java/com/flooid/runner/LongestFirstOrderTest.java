@@ -0,0 +1,62 @@
+package com.flooid.runner;
+
+import io.cucumber.junit.platform.engine.CucumberTestEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClasspathResource;
+
+class LongestFirstOrderTest {
+
+    private static final String FEATURE = "classpath:engine-fixtures/ScenarioThreads.feature:";
+
+    @Test
+    void startsTheLongestScenariosFirstAndKeepsTheFeatureFileOrderOtherwise() {
+        TestDescriptor root = discover();
+        ShardPlanner planner = new ShardPlanner(Map.of(
+                FEATURE + "9", Duration.ofSeconds(1),
+                FEATURE + "10", Duration.ofSeconds(1),
+                FEATURE + "11", Duration.ofSeconds(5),
+                FEATURE + "12", Duration.ofSeconds(1),
+                FEATURE + "13", Duration.ofSeconds(3),
+                FEATURE + "14", Duration.ofSeconds(1)));
+
+        Duration longest = LongestFirstOrder.reorder(root, planner);
+
+        assertEquals(Duration.ofSeconds(5), longest);
+        assertEquals(List.of("Example #1.3", "Example #1.5", "Example #1.1", "Example #1.2", "Example #1.4",
+                "Example #1.6"), scenarioNames(root));
+    }
+
+    @Test
+    void keepsTheFeatureFileOrderWithoutHistory() {
+        TestDescriptor root = discover();
+
+        LongestFirstOrder.reorder(root, new ShardPlanner(Map.of()));
+
+        assertEquals(List.of("Example #1.1", "Example #1.2", "Example #1.3", "Example #1.4", "Example #1.5",
+                "Example #1.6"), scenarioNames(root));
+    }
+
+    private static TestDescriptor discover() {
+        return new CucumberTestEngine().discover(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClasspathResource("engine-fixtures"))
+                .enableImplicitConfigurationParameters(false)
+                .build(), UniqueId.forEngine("cucumber"));
+    }
+
+    private static List<String> scenarioNames(TestDescriptor root) {
+        return root.getDescendants().stream()
+                .filter(TestDescriptor::isTest)
+                .map(TestDescriptor::getDisplayName)
+                .collect(Collectors.toList());
+    }
+}
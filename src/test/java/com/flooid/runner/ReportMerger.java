@@ -0,0 +1,154 @@
+package com.flooid.runner;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Merges the Cucumber JSON and JUnit XML reports of several shards into one report of each kind, so CI sees a single
+ * run. Features split across shards are joined back together, with their scenarios in file order.
+ * <p>
+ * Usage: {@code ReportMerger <output directory> [shard directory...]}; without shard directories every
+ * {@code shard-*} directory next to the output directory is merged.
+ */
+public class ReportMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportMerger.class);
+    private static final String JSON_REPORT = "cucumber-json-reports/cucumber.json";
+    private static final String JUNIT_REPORT = "cucumber-junit-reports/cucumberJunit.xml";
+    private static final List<String> COUNT_ATTRIBUTES = List.of("tests", "skipped", "failures", "errors");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: ReportMerger <output directory> [shard directory...]");
+        }
+        Path output = Paths.get(args[0]);
+        List<Path> shards = args.length > 1
+                ? Stream.of(args).skip(1).map(Paths::get).collect(Collectors.toList())
+                : findShards(output.toAbsolutePath().getParent());
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No shard reports found to merge into " + output);
+        }
+        mergeJson(shards, output.resolve(JSON_REPORT));
+        mergeJunit(shards, output.resolve(JUNIT_REPORT));
+        logger.info("Merged the reports of {} shard(s) into {}", shards.size(), output);
+    }
+
+    private static List<Path> findShards(Path directory) throws IOException {
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.filter(Files::isDirectory)
+                    .filter(child -> child.getFileName().toString().startsWith("shard-"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static void mergeJson(List<Path> shards, Path target) throws IOException {
+        Map<String, Map<String, Object>> features = new LinkedHashMap<>();
+        for (Path shard : shards) {
+            Path report = shard.resolve(JSON_REPORT);
+            if (!Files.isRegularFile(report)) {
+                logger.warn("Shard {} has no Cucumber JSON report", shard);
+                continue;
+            }
+            List<Map<String, Object>> shardFeatures =
+                    new Json().toType(Files.readString(report, StandardCharsets.UTF_8), List.class);
+            for (Map<String, Object> feature : shardFeatures) {
+                Map<String, Object> merged = features.computeIfAbsent((String) feature.get("uri"), uri -> {
+                    Map<String, Object> copy = new LinkedHashMap<>(feature);
+                    copy.put("elements", new ArrayList<>());
+                    return copy;
+                });
+                ((List<Object>) merged.get("elements")).addAll((List<Object>) feature.getOrDefault("elements", List.of()));
+            }
+        }
+        for (Map<String, Object> feature : features.values()) {
+            // Keep each Background directly before its scenario: a stable sort by line leaves the pair in order.
+            List<List<Map<String, Object>>> groups = new ArrayList<>();
+            List<Map<String, Object>> group = new ArrayList<>();
+            for (Map<String, Object> element : (List<Map<String, Object>>) feature.get("elements")) {
+                group.add(element);
+                if (!"background".equals(element.get("type"))) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+            }
+            groups.sort(Comparator.comparingInt(g -> ((Number) g.get(g.size() - 1).get("line")).intValue()));
+            feature.put("elements", groups.stream().flatMap(List::stream).collect(Collectors.toList()));
+        }
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, new Json().toJson(new ArrayList<>(features.values())), StandardCharsets.UTF_8);
+    }
+
+    static void mergeJunit(List<Path> shards, Path target)
+            throws IOException, ParserConfigurationException, SAXException, TransformerException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        Document merged = null;
+        double time = 0;
+        for (Path shard : shards) {
+            Path report = shard.resolve(JUNIT_REPORT);
+            if (!Files.isRegularFile(report)) {
+                logger.warn("Shard {} has no JUnit report", shard);
+                continue;
+            }
+            Document document = factory.newDocumentBuilder().parse(report.toFile());
+            Element suite = document.getDocumentElement();
+            time += Double.parseDouble(suite.getAttribute("time").isEmpty() ? "0" : suite.getAttribute("time"));
+            if (merged == null) {
+                merged = document;
+                continue;
+            }
+            Element mergedSuite = merged.getDocumentElement();
+            for (String attribute : COUNT_ATTRIBUTES) {
+                long total = count(mergedSuite, attribute) + count(suite, attribute);
+                mergedSuite.setAttribute(attribute, Long.toString(total));
+            }
+            for (Node child = suite.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    mergedSuite.appendChild(merged.importNode(child, true));
+                }
+            }
+        }
+        if (merged == null) {
+            return;
+        }
+        merged.getDocumentElement().setAttribute("time", String.format(Locale.ROOT, "%.3f", time));
+        Files.createDirectories(target.getParent());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
+        transformer.transform(new DOMSource(merged), new StreamResult(target.toFile()));
+    }
+
+    private static long count(Element suite, String attribute) {
+        String value = suite.getAttribute(attribute);
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,56 @@
+package com.flooid.runner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.json.Json;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportMergerTest {
+
+    @TempDir
+    Path output;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void joinsFeaturesSplitAcrossShardsWithEachBackgroundBeforeItsScenario() throws Exception {
+        Path target = output.resolve("cucumber.json");
+
+        ReportMerger.mergeJson(List.of(shard("shard-1"), shard("shard-2")), target);
+
+        List<Map<String, Object>> features = new Json().toType(Files.readString(target, StandardCharsets.UTF_8), List.class);
+        assertEquals(List.of("classpath:features/Contact.feature", "classpath:features/Other.feature"),
+                features.stream().map(feature -> feature.get("uri")).collect(Collectors.toList()));
+        List<Map<String, Object>> elements = (List<Map<String, Object>>) features.get(0).get("elements");
+        assertEquals(List.of("shard-2 background", "first", "shard-1 background", "second"),
+                elements.stream().map(element -> element.get("name")).collect(Collectors.toList()));
+    }
+
+    @Test
+    void addsUpTheCountsAndTimesOfTheJunitReports() throws Exception {
+        Path target = output.resolve("cucumberJunit.xml");
+
+        ReportMerger.mergeJunit(List.of(shard("shard-1"), shard("shard-2")), target);
+
+        Element suite = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(target.toFile()).getDocumentElement();
+        assertEquals("3", suite.getAttribute("tests"));
+        assertEquals("1", suite.getAttribute("skipped"));
+        assertEquals("1", suite.getAttribute("failures"));
+        assertEquals("3.750", suite.getAttribute("time"));
+        assertEquals(3, suite.getElementsByTagName("testcase").getLength());
+    }
+
+    private Path shard(String name) throws Exception {
+        return Paths.get(getClass().getResource("/reports/shards/" + name).toURI());
+    }
+}
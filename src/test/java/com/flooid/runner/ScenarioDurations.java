@@ -0,0 +1,176 @@
+package com.flooid.runner;
+
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClasspathResourceSource;
+import org.junit.platform.engine.support.descriptor.FilePosition;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scenario durations of previous runs, read from Cucumber JSON reports. Scenarios are identified by feature URI and
+ * line ({@code classpath:features/InvalidEmailAddress.feature:15}), which for Scenario Outlines is the line of the
+ * Examples row, so every pickle has its own key. A scenario's duration includes its Background and hooks.
+ * Reports written by the current run ({@code shard-*}, {@code merged} and {@code rerun-*} directories) are never
+ * read as history.
+ */
+public class ScenarioDurations {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioDurations.class);
+    private static final String REPORT_FILE_NAME = "cucumber.json";
+    private static final Pattern RUN_OUTPUT_DIRECTORY = Pattern.compile("shard-.*|merged|rerun-.*");
+
+    private ScenarioDurations() {
+    }
+
+    /**
+     * Reads the mean duration of every scenario found in the given reports.
+     *
+     * @param sources Comma-separated Cucumber JSON files, or directories searched for {@code cucumber.json} files.
+     * @return The mean duration per scenario key; scenarios missing from the reports are absent.
+     */
+    public static Map<String, Duration> read(String sources) {
+        Map<String, long[]> totals = new HashMap<>();
+        MessageDigest fingerprint = sha256();
+        List<Path> reports = findReports(sources);
+        for (Path report : reports) {
+            readReport(report, totals, fingerprint);
+        }
+        // Shards agree on the split only if they read the same history; compare this line across shards
+        logger.info("Read durations of {} scenario(s) from {} report(s) in {}, history fingerprint {}", totals.size(),
+                reports.size(), sources, hex(fingerprint.digest()).substring(0, 16));
+        Map<String, Duration> durations = new HashMap<>();
+        totals.forEach((key, total) -> durations.put(key, Duration.ofNanos(total[0] / total[1])));
+        return durations;
+    }
+
+    /**
+     * Returns the key of a pickle, matching the keys read from the reports.
+     */
+    public static Optional<String> keyOf(TestDescriptor descriptor) {
+        return descriptor.getSource().flatMap(ScenarioDurations::keyOf);
+    }
+
+    /**
+     * Returns the key of a pickle given its source, matching the keys read from the reports.
+     */
+    public static Optional<String> keyOf(TestSource source) {
+        if (source instanceof ClasspathResourceSource) {
+            ClasspathResourceSource resource = (ClasspathResourceSource) source;
+            return resource.getPosition().map(position ->
+                    "classpath:" + resource.getClasspathResourceName() + ":" + position.getLine());
+        } else if (source instanceof FileSource) {
+            FileSource file = (FileSource) source;
+            String path = Paths.get("").toAbsolutePath().relativize(file.getFile().toPath().toAbsolutePath()).toString();
+            return file.getPosition().map(FilePosition::getLine).map(line -> "file:" + path.replace('\\', '/') + ":" + line);
+        }
+        return Optional.empty();
+    }
+
+    private static List<Path> findReports(String sources) {
+        List<Path> reports = new ArrayList<>();
+        for (String source : Arrays.stream(sources.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList())) {
+            Path path = Paths.get(source);
+            if (Files.isRegularFile(path)) {
+                reports.add(path);
+            } else if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(file -> file.getFileName().toString().equals(REPORT_FILE_NAME))
+                            .filter(file -> !isRunOutput(path.relativize(file)))
+                            .sorted()
+                            .forEach(reports::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not search " + path + " for Cucumber reports", e);
+                }
+            }
+        }
+        return reports;
+    }
+
+    private static boolean isRunOutput(Path relativeReport) {
+        for (Path directory : relativeReport) {
+            if (RUN_OUTPUT_DIRECTORY.matcher(directory.toString()).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readReport(Path report, Map<String, long[]> totals, MessageDigest fingerprint) {
+        List<Map<String, Object>> features;
+        try {
+            byte[] content = Files.readAllBytes(report);
+            fingerprint.update(content);
+            features = new Json().toType(new String(content, StandardCharsets.UTF_8), List.class);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Skipping unreadable Cucumber report {}", report, e);
+            return;
+        }
+        for (Map<String, Object> feature : features) {
+            long background = 0;
+            for (Map<String, Object> element : (List<Map<String, Object>>) feature.getOrDefault("elements", List.of())) {
+                long duration = sumDurations(element, "before") + sumDurations(element, "steps") + sumDurations(element, "after");
+                if ("background".equals(element.get("type"))) {
+                    background = duration;
+                    continue;
+                }
+                String key = feature.get("uri") + ":" + ((Number) element.get("line")).intValue();
+                long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+                total[0] += background + duration;
+                total[1]++;
+                background = 0;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long sumDurations(Map<String, Object> element, String name) {
+        long sum = 0;
+        for (Map<String, Object> item : (List<Map<String, Object>>) element.getOrDefault(name, List.of())) {
+            Map<String, Object> result = (Map<String, Object>) item.getOrDefault("result", Map.of());
+            Object duration = result.get("duration");
+            if (duration instanceof Number) {
+                sum += ((Number) duration).longValue();
+            }
+        }
+        return sum;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
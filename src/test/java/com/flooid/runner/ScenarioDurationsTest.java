@@ -0,0 +1,67 @@
+package com.flooid.runner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.support.descriptor.ClasspathResourceSource;
+import org.junit.platform.engine.support.descriptor.FilePosition;
+import org.junit.platform.engine.support.descriptor.FileSource;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScenarioDurationsTest {
+
+    private static final String FEATURE = "classpath:features/Contact.feature";
+
+    @Test
+    void readsTheMeanDurationOfEveryScenarioIncludingBackgroundAndHooks() throws Exception {
+        Map<String, Duration> durations = ScenarioDurations.read(resource("/reports/history").toString());
+
+        // run-1: 1s background + 0.5s hook + 2s steps, run-2: 1s background + 4s steps
+        assertEquals(Duration.ofMillis(4250), durations.get(FEATURE + ":6"));
+        assertEquals(Duration.ofSeconds(5), durations.get(FEATURE + ":14"));
+    }
+
+    @Test
+    void skipsTheOutputOfTheCurrentRun() throws Exception {
+        Map<String, Duration> durations = ScenarioDurations.read(resource("/reports/history").toString());
+
+        assertEquals(Map.of(FEATURE + ":6", Duration.ofMillis(4250), FEATURE + ":14", Duration.ofSeconds(5)), durations);
+    }
+
+    @Test
+    void readsReportFilesAndDirectoriesFromACommaSeparatedList() throws Exception {
+        String sources = resource("/reports/history/run-1/cucumber.json") + ", " + resource("/reports/history/run-2");
+
+        assertEquals(Duration.ofMillis(4250), ScenarioDurations.read(sources).get(FEATURE + ":6"));
+    }
+
+    @Test
+    void derivesTheKeyOfAClasspathScenarioFromItsResourceAndLine() {
+        ClasspathResourceSource source = ClasspathResourceSource.from("features/Contact.feature", FilePosition.from(15, 5));
+
+        assertEquals(Optional.of("classpath:features/Contact.feature:15"), ScenarioDurations.keyOf(source));
+    }
+
+    @Test
+    void derivesTheKeyOfAFileScenarioFromItsPathRelativeToTheWorkingDirectory() {
+        File feature = Paths.get("src", "test", "resources", "features", "Contact.feature").toAbsolutePath().toFile();
+
+        assertEquals(Optional.of("file:src/test/resources/features/Contact.feature:15"),
+                ScenarioDurations.keyOf(FileSource.from(feature, FilePosition.from(15))));
+    }
+
+    @Test
+    void hasNoKeyForAScenarioWithoutPosition() {
+        assertEquals(Optional.empty(), ScenarioDurations.keyOf(ClasspathResourceSource.from("features/Contact.feature")));
+    }
+
+    private Path resource(String name) throws Exception {
+        return Paths.get(getClass().getResource(name).toURI());
+    }
+}
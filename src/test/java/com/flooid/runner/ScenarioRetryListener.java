@@ -0,0 +1,231 @@
+package com.flooid.runner;
+
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClasspathResourceSource;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Follows the scenarios that Surefire re-runs in the same JVM after they failed ({@code -Dretry.count=2}). Only
+ * failures are retried; aborted scenarios, e.g. skipped by an assumption, are not. The retries reuse the warm browser
+ * sessions of the first attempt only with {@code webdriver.session.mode=pooled}; otherwise every retry starts its own
+ * browser like any scenario. On every retry {@link SchedulingCucumberEngine} redirects the Cucumber reports to
+ * {@code rerun-<attempt>} directories next to the configured ones (see {@link #redirectReports}), so the report of the
+ * full run is kept. After every attempt a summary is written to {@code retry.report.path} (default
+ * {@code target/cucumber-reports/retries.json}) marking each retried scenario as {@code flaky} (passed on a retry)
+ * or {@code failing} (failed every attempt).
+ */
+public class ScenarioRetryListener implements TestExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioRetryListener.class);
+    private static final String PLUGIN_KEY = "cucumber.plugin";
+    private static final String REPORT_PATH_KEY = "retry.report.path";
+    private static final String DEFAULT_REPORT_PATH = "target/cucumber-reports/retries.json";
+
+    private static TestPlan testPlan;
+    private static int attempt;
+    private static final Map<String, Retry> retries = new LinkedHashMap<>();
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        synchronized (retries) {
+            ScenarioRetryListener.testPlan = testPlan;
+            attempt++;
+            if (attempt > 1) {
+                logger.info("Retry {}: re-running {} failed scenario(s)", attempt - 1, testPlan.countTestIdentifiers(TestIdentifier::isTest));
+            }
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        if (!testIdentifier.isTest()) {
+            return;
+        }
+        boolean failed = testExecutionResult.getStatus() == TestExecutionResult.Status.FAILED;
+        synchronized (retries) {
+            String id = testIdentifier.getUniqueId();
+            if (attempt == 1 && failed) {
+                String key = testIdentifier.getSource().flatMap(ScenarioDurations::keyOf).orElse(id);
+                retries.put(id, new Retry(key, nameOf(testIdentifier)));
+            } else if (attempt > 1 && retries.containsKey(id)) {
+                retries.get(id).attempts.add(failed ? "failed" : "passed");
+            }
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        synchronized (retries) {
+            if (attempt == 1 || retries.isEmpty()) {
+                return;
+            }
+            long flaky = retries.values().stream().filter(Retry::isFlaky).count();
+            logger.info("After {} retry attempt(s): {} flaky and {} failing scenario(s)", attempt - 1, flaky,
+                    retries.size() - flaky);
+            writeReport();
+        }
+    }
+
+    /**
+     * Returns the configuration parameters of the current attempt: on a retry, {@code cucumber.plugin} points every
+     * report at the {@code rerun-<attempt>} directories (see {@link #rerunPlugins}).
+     */
+    static ConfigurationParameters redirectReports(ConfigurationParameters parameters) {
+        int retry;
+        synchronized (retries) {
+            retry = attempt - 1;
+        }
+        Optional<String> plugins = parameters.get(PLUGIN_KEY);
+        if (retry < 1 || plugins.isEmpty()) {
+            return parameters;
+        }
+        return new RerunParameters(parameters, rerunPlugins(plugins.get(), retry));
+    }
+
+    /**
+     * Returns the names of the scenarios that failed on the first attempt.
+     */
+    static List<String> failedScenarios() {
+        synchronized (retries) {
+            return retries.values().stream().map(retry -> retry.name).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Forgets all attempts, e.g. before a test runs its own test plan.
+     */
+    static void reset() {
+        synchronized (retries) {
+            testPlan = null;
+            attempt = 0;
+            retries.clear();
+        }
+    }
+
+    /**
+     * Returns the display names of the feature, rule, outline and examples of a scenario, followed by its own.
+     */
+    private static String nameOf(TestIdentifier testIdentifier) {
+        List<String> names = new ArrayList<>();
+        names.add(testIdentifier.getDisplayName());
+        Optional<TestIdentifier> parent = testPlan.getParent(testIdentifier);
+        while (parent.isPresent() && parent.get().getSource().filter(source ->
+                source instanceof ClasspathResourceSource || source instanceof FileSource).isPresent()) {
+            names.add(0, parent.get().getDisplayName());
+            parent = testPlan.getParent(parent.get());
+        }
+        return String.join(" / ", names);
+    }
+
+    /**
+     * Points every plugin output of a {@code cucumber.plugin} value at a {@code rerun-<attempt>} directory next to it,
+     * so {@code json:reports/cucumber.json} becomes {@code json:reports/rerun-1/cucumber.json}.
+     */
+    static String rerunPlugins(String plugins, int retry) {
+        List<String> rerun = new ArrayList<>();
+        for (String plugin : plugins.split(",")) {
+            String trimmed = plugin.trim();
+            int separator = trimmed.indexOf(':');
+            if (separator < 0) {
+                rerun.add(trimmed);
+                continue;
+            }
+            Path output = Paths.get(trimmed.substring(separator + 1));
+            Path parent = output.getParent() == null ? Paths.get("") : output.getParent();
+            String redirected = parent.resolve("rerun-" + retry).resolve(output.getFileName()).toString();
+            rerun.add(trimmed.substring(0, separator + 1) + redirected.replace('\\', '/'));
+        }
+        return String.join(", ", rerun);
+    }
+
+    private void writeReport() {
+        List<Map<String, Object>> rows = retries.values().stream().map(retry -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("scenario", retry.name);
+            row.put("key", retry.key);
+            row.put("status", retry.isFlaky() ? "flaky" : "failing");
+            List<String> attempts = new ArrayList<>();
+            attempts.add("failed");
+            attempts.addAll(retry.attempts);
+            row.put("attempts", attempts);
+            return row;
+        }).collect(Collectors.toList());
+        Path report = Paths.get(testPlan.getConfigurationParameters().get(REPORT_PATH_KEY).orElse(DEFAULT_REPORT_PATH));
+        try {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Files.writeString(report, new Json().toJson(rows), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the retry report " + report, e);
+        }
+    }
+
+    /**
+     * The configuration parameters of a retry, with the {@code cucumber.plugin} value of the retry.
+     */
+    private static class RerunParameters implements ConfigurationParameters {
+        private final ConfigurationParameters parameters;
+        private final String plugins;
+
+        private RerunParameters(ConfigurationParameters parameters, String plugins) {
+            this.parameters = parameters;
+            this.plugins = plugins;
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return PLUGIN_KEY.equals(key) ? Optional.of(plugins) : parameters.get(key);
+        }
+
+        @Override
+        public Optional<Boolean> getBoolean(String key) {
+            return parameters.getBoolean(key);
+        }
+
+        @Override
+        @Deprecated
+        public int size() {
+            return parameters.size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return parameters.keySet();
+        }
+    }
+
+    private static class Retry {
+        private final String key;
+        private final String name;
+        private final List<String> attempts = new ArrayList<>();
+
+        private Retry(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        private boolean isFlaky() {
+            return attempts.contains("passed");
+        }
+    }
+}
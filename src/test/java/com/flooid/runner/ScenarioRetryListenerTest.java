@@ -0,0 +1,91 @@
+package com.flooid.runner;
+
+import com.flooid.runner.fixture.OutcomeSteps;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherConfig;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClasspathResource;
+
+class ScenarioRetryListenerTest {
+
+    @TempDir
+    Path reports;
+
+    @BeforeEach
+    @AfterEach
+    void reset() {
+        ScenarioRetryListener.reset();
+    }
+
+    @Test
+    void recordsFailedScenariosButNotAbortedOnes() {
+        TestExecutionSummary summary = run();
+
+        assertEquals(1, summary.getTestsFailedCount());
+        assertEquals(1, summary.getTestsAbortedCount());
+        assertEquals(List.of("Scenario outcomes / Failing scenario"), ScenarioRetryListener.failedScenarios());
+    }
+
+    @Test
+    void writesTheReportsOfARetryNextToThoseOfTheFullRun() throws IOException {
+        run();
+        run();
+
+        assertTrue(Files.exists(reports.resolve("cucumber.json")));
+        assertTrue(Files.exists(reports.resolve("rerun-1").resolve("cucumber.json")));
+        String retries = Files.readString(reports.resolve("retries.json"), StandardCharsets.UTF_8);
+        assertTrue(retries.contains("\"failing\""), retries);
+        assertFalse(retries.contains("Aborted scenario"), retries);
+    }
+
+    @Test
+    void keepsTheConfiguredReportsOnTheFirstAttempt() {
+        run();
+
+        assertTrue(Files.exists(reports.resolve("cucumber.json")));
+        assertTrue(Files.notExists(reports.resolve("rerun-1")));
+    }
+
+    /**
+     * Runs the retry test features, as one attempt of the acceptance run, with the listener under test.
+     */
+    private TestExecutionSummary run() {
+        Launcher launcher = LauncherFactory.create(LauncherConfig.builder()
+                .enableTestEngineAutoRegistration(false)
+                .enablePostDiscoveryFilterAutoRegistration(false)
+                .enableTestExecutionListenerAutoRegistration(false)
+                .addTestEngines(new SchedulingCucumberEngine())
+                .build());
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClasspathResource("retry-fixtures"))
+                .enableImplicitConfigurationParameters(false)
+                .configurationParameter("cucumber.glue", OutcomeSteps.class.getPackageName())
+                .configurationParameter("cucumber.publish.quiet", "true")
+                .configurationParameter("cucumber.plugin", "json:" + reports.resolve("cucumber.json"))
+                .configurationParameter("retry.report.path", reports.resolve("retries.json").toString())
+                .configurationParameter("scenario.order", "feature_file")
+                .configurationParameter("scenario.threads", "platform")
+                .build();
+        SummaryGeneratingListener summary = new SummaryGeneratingListener();
+        launcher.execute(request, summary, new ScenarioRetryListener());
+        return summary.getSummary();
+    }
+}
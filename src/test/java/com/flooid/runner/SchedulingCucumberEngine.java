@@ -0,0 +1,139 @@
+package com.flooid.runner;
+
+import com.flooid.engine.Configuration;
+import io.cucumber.junit.platform.engine.CucumberEngineExecutionContext;
+import io.cucumber.junit.platform.engine.CucumberTestEngine;
+import org.junit.platform.commons.JUnitException;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.EngineDiscoveryRequest;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.ExecutionRequest;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestEngine;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.Node;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The Cucumber engine of {@link TestRunner}. Discovery and execution of features and scenarios are the Cucumber
+ * engine's; this engine only decides in which order scenarios start and on which threads they run:
+ * <ul>
+ *     <li>{@code scenario.order=longest_first} starts the scenarios expected to take longest first (see
+ *     {@link LongestFirstOrder}); the default, {@code feature_file}, keeps the feature file order.</li>
+ *     <li>{@code scenario.threads=virtual} runs every scenario on its own virtual thread (see
+ *     {@link VirtualThreadExecutorService}), as many at once as the grid has session slots, up to
+ *     {@code webdriver.remote_grid.max_parallelism}, or the fixed parallelism without a grid (see
+ *     {@link GridCapacityParallelism}). The default, {@code platform}, hands scenarios to the same worker pool as
+ *     the Cucumber engine, configured by {@code cucumber.execution.parallel.*}.</li>
+ * </ul>
+ * Both settings are read from the configuration parameters, e.g. system properties, and otherwise from
+ * {@code configuration.properties}. Cucumber keeps one set of glue per thread, so with virtual threads every
+ * scenario loads the glue once; step definition state was already per scenario.
+ */
+public class SchedulingCucumberEngine extends HierarchicalTestEngine<CucumberEngineExecutionContext> {
+
+    public static final String ENGINE_ID = "cucumber-scheduling";
+    static final String ORDER_KEY = "scenario.order";
+    static final String THREADS_KEY = "scenario.threads";
+    private static final String PARALLEL_ENABLED_KEY = "cucumber.execution.parallel.enabled";
+    private static final String PARALLEL_CONFIG_PREFIX = "cucumber.execution.parallel.config.";
+
+    private final CucumberTestEngine cucumber = new CucumberTestEngine();
+
+    @Override
+    public String getId() {
+        return ENGINE_ID;
+    }
+
+    @Override
+    public TestDescriptor discover(EngineDiscoveryRequest discoveryRequest, UniqueId uniqueId) {
+        TestDescriptor features = cucumber.discover(discoveryRequest, uniqueId);
+        // Without features, e.g. in the unit test run, Cucumber is not started at all
+        if (features.getChildren().isEmpty()) {
+            return new EngineDescriptor(uniqueId, features.getDisplayName());
+        }
+        // The tree is this engine's until discovery returns, so it is ordered here rather than by a launcher filter
+        if (setting(discoveryRequest.getConfigurationParameters(), ORDER_KEY, "feature_file", "longest_first")
+                .equals("longest_first")) {
+            LongestFirstOrder.apply(features);
+        }
+        return features;
+    }
+
+    @Override
+    protected HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+        ConfigurationParameters parameters = request.getConfigurationParameters();
+        if (!hasFeatures(request) || !parameters.getBoolean(PARALLEL_ENABLED_KEY).orElse(false)) {
+            return super.createExecutorService(request);
+        }
+        PrefixedConfigurationParameters parallelConfig = new PrefixedConfigurationParameters(parameters, PARALLEL_CONFIG_PREFIX);
+        if (setting(parameters, THREADS_KEY, "platform", "virtual").equals("virtual")) {
+            return new VirtualThreadExecutorService(GridCapacityParallelism.scenarioLimit(parallelConfig));
+        }
+        return new ForkJoinPoolHierarchicalTestExecutorService(parallelConfig);
+    }
+
+    /**
+     * Lets the Cucumber engine create its execution context: it runs the request's configuration against an empty
+     * root that keeps the context it is prepared with. Creating the context starts nothing; the Cucumber engine
+     * descriptor starts the test run when it is prepared with the context in turn. On a retry of failed scenarios
+     * the context writes its reports next to those of the full run (see {@link ScenarioRetryListener}).
+     */
+    @Override
+    protected CucumberEngineExecutionContext createExecutionContext(ExecutionRequest request) {
+        ContextCapture capture = new ContextCapture(request.getRootTestDescriptor().getUniqueId());
+        ConfigurationParameters parameters = ScenarioRetryListener.redirectReports(request.getConfigurationParameters());
+        cucumber.execute(new ExecutionRequest(capture, EngineExecutionListener.NOOP, parameters));
+        if (capture.context == null) {
+            throw new JUnitException("The Cucumber engine did not create an execution context");
+        }
+        return capture.context;
+    }
+
+    /**
+     * Whether the request runs the Cucumber engine's descriptor rather than the empty one of {@link #discover}.
+     */
+    private static boolean hasFeatures(ExecutionRequest request) {
+        return request.getRootTestDescriptor() instanceof Node;
+    }
+
+    /**
+     * Reads a setting from the configuration parameters, falling back to the configuration.
+     *
+     * @param defaultValue The value when the setting is missing.
+     * @param otherValue   The only other valid value.
+     */
+    private static String setting(ConfigurationParameters parameters, String key, String defaultValue, String otherValue) {
+        String value = parameters.get(key)
+                .orElseGet(() -> Configuration.getInstance().getProperty(key, defaultValue))
+                .trim().toLowerCase(Locale.ROOT);
+        if (!Arrays.asList(defaultValue, otherValue).contains(value)) {
+            throw new IllegalStateException(String.format(
+                    "Property %s has an invalid value: expected %s or %s but was '%s'", key, defaultValue, otherValue, value));
+        }
+        return value;
+    }
+
+    /**
+     * An empty engine root that keeps the execution context it is prepared with.
+     */
+    private static class ContextCapture extends EngineDescriptor implements Node<CucumberEngineExecutionContext> {
+        private CucumberEngineExecutionContext context;
+
+        private ContextCapture(UniqueId uniqueId) {
+            super(uniqueId, "Cucumber execution context");
+        }
+
+        @Override
+        public CucumberEngineExecutionContext prepare(CucumberEngineExecutionContext context) {
+            this.context = context;
+            return context;
+        }
+    }
+}
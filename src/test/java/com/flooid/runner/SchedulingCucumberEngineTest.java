@@ -0,0 +1,103 @@
+package com.flooid.runner;
+
+import com.flooid.runner.fixture.ThreadRecordingSteps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherConfig;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClasspathResource;
+
+class SchedulingCucumberEngineTest {
+
+    @BeforeEach
+    void reset() {
+        ThreadRecordingSteps.reset();
+    }
+
+    @Test
+    void runsEveryScenarioOnItsOwnThreadWithinTheParallelism() {
+        TestExecutionSummary summary = run(Map.of(
+                "scenario.threads", "virtual",
+                "cucumber.execution.parallel.enabled", "true",
+                "cucumber.execution.parallel.config.fixed.parallelism", "2"));
+
+        assertEquals(6, summary.getTestsFoundCount());
+        assertEquals(6, summary.getTestsSucceededCount(), () -> "Failures: " + summary.getFailures());
+        assertEquals(6, ThreadRecordingSteps.THREADS.size());
+        assertTrue(ThreadRecordingSteps.THREADS.stream().allMatch(thread -> thread.startsWith("scenario-")),
+                () -> "Threads: " + ThreadRecordingSteps.THREADS);
+        assertEquals(2, ThreadRecordingSteps.MAX_RUNNING.get());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void runsScenariosOnVirtualThreadsFromJava21() {
+        TestExecutionSummary summary = run(Map.of(
+                "scenario.threads", "virtual",
+                "cucumber.execution.parallel.enabled", "true"));
+
+        assertEquals(6, summary.getTestsSucceededCount(), () -> "Failures: " + summary.getFailures());
+        assertEquals(ThreadRecordingSteps.THREADS, ThreadRecordingSteps.VIRTUAL_THREADS);
+    }
+
+    @Test
+    void runsScenariosOnTheWorkerPoolWithPlatformThreads() {
+        TestExecutionSummary summary = run(Map.of(
+                "scenario.threads", "platform",
+                "cucumber.execution.parallel.enabled", "true",
+                "cucumber.execution.parallel.config.fixed.parallelism", "3"));
+
+        assertEquals(6, summary.getTestsSucceededCount(), () -> "Failures: " + summary.getFailures());
+        assertTrue(ThreadRecordingSteps.THREADS.stream().noneMatch(thread -> thread.startsWith("scenario-")),
+                () -> "Threads: " + ThreadRecordingSteps.THREADS);
+        assertTrue(ThreadRecordingSteps.MAX_RUNNING.get() <= 3);
+    }
+
+    @Test
+    void runsScenariosOneAtATimeWhenParallelExecutionIsDisabled() {
+        TestExecutionSummary summary = run(Map.of(
+                "scenario.threads", "virtual",
+                "cucumber.execution.parallel.enabled", "false"));
+
+        assertEquals(6, summary.getTestsSucceededCount(), () -> "Failures: " + summary.getFailures());
+        assertEquals(1, ThreadRecordingSteps.MAX_RUNNING.get());
+    }
+
+    /**
+     * Runs the engine test features on this engine only, without the settings of the acceptance run.
+     */
+    private static TestExecutionSummary run(Map<String, String> parameters) {
+        Launcher launcher = LauncherFactory.create(LauncherConfig.builder()
+                .enableTestEngineAutoRegistration(false)
+                .enablePostDiscoveryFilterAutoRegistration(false)
+                .enableTestExecutionListenerAutoRegistration(false)
+                .addTestEngines(new SchedulingCucumberEngine())
+                .build());
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClasspathResource("engine-fixtures"))
+                .enableImplicitConfigurationParameters(false)
+                .configurationParameter("cucumber.glue", ThreadRecordingSteps.class.getPackageName())
+                .configurationParameter("cucumber.publish.quiet", "true")
+                .configurationParameter("cucumber.execution.parallel.config.strategy", "fixed")
+                // Not taken from the configuration, which the Maven profiles may have changed
+                .configurationParameter("scenario.order", "feature_file")
+                .configurationParameter("scenario.threads", "platform")
+                .configurationParameters(parameters)
+                .build();
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        launcher.execute(request, listener);
+        return listener.getSummary();
+    }
+}
@@ -0,0 +1,108 @@
+package com.flooid.runner;
+
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps only the scenarios of one shard, so a run can be split across JVMs or CI nodes with
+ * {@code -Dshard.total=3 -Dshard.index=1 -Dshard.history=<reports>} (1-based). Scenarios are balanced by the
+ * durations recorded in the Cucumber JSON reports found under {@code shard.history} (comma-separated files or
+ * directories); see {@link ShardPlanner}. The history is required when sharding: every shard must read the same
+ * frozen reports, not the output of a run that other shards may still be writing. Without {@code shard.total}
+ * every scenario runs.
+ * Registered as a service, so it applies to every launch.
+ */
+public class ShardFilter implements PostDiscoveryFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardFilter.class);
+    private static final String SHARD_INDEX_KEY = "shard.index";
+    private static final String SHARD_TOTAL_KEY = "shard.total";
+    private static final String SHARD_HISTORY_KEY = "shard.history";
+
+    private static volatile Set<String> plannedKeys = Collections.emptySet();
+    private static volatile Map<String, Integer> assignment = Collections.emptyMap();
+
+    private final int shardIndex;
+    private final int shardTotal;
+    private final String shardHistory;
+
+    public ShardFilter() {
+        this.shardTotal = Integer.parseInt(setting(SHARD_TOTAL_KEY, "1"));
+        this.shardIndex = Integer.parseInt(setting(SHARD_INDEX_KEY, "1"));
+        if (shardTotal < 1 || shardIndex < 1 || shardIndex > shardTotal) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d, %s must be between 1 and %s",
+                    shardIndex, shardTotal, SHARD_INDEX_KEY, SHARD_TOTAL_KEY));
+        }
+        this.shardHistory = setting(SHARD_HISTORY_KEY, null);
+        if (shardTotal > 1 && shardHistory == null) {
+            throw new IllegalStateException(String.format("%s must be set when %s is greater than 1: point every shard"
+                    + " at the same reports of an earlier run, e.g. its merged report", SHARD_HISTORY_KEY, SHARD_TOTAL_KEY));
+        }
+    }
+
+    @Override
+    public FilterResult apply(TestDescriptor descriptor) {
+        if (shardTotal == 1 || !descriptor.isTest()) {
+            return FilterResult.included("Sharding disabled or not a scenario");
+        }
+        Optional<String> key = ScenarioDurations.keyOf(descriptor);
+        if (key.isEmpty()) {
+            return FilterResult.included("Scenario has no source position");
+        }
+        int shard = shardOf(key.get(), descriptor);
+        return FilterResult.includedIf(shard == shardIndex,
+                () -> "Scenario belongs to shard " + shardIndex,
+                () -> "Scenario belongs to shard " + shard);
+    }
+
+    private int shardOf(String key, TestDescriptor descriptor) {
+        synchronized (ShardFilter.class) {
+            if (!plannedKeys.contains(key)) {
+                plan(descriptor);
+            }
+            return assignment.get(key);
+        }
+    }
+
+    private void plan(TestDescriptor descriptor) {
+        TestDescriptor root = descriptor;
+        while (root.getParent().isPresent()) {
+            root = root.getParent().get();
+        }
+        Set<String> keys = new LinkedHashSet<>(plannedKeys);
+        for (TestDescriptor test : root.getDescendants()) {
+            if (test.isTest()) {
+                ScenarioDurations.keyOf(test).ifPresent(keys::add);
+            }
+        }
+        keys.add(ScenarioDurations.keyOf(descriptor).orElseThrow());
+        ShardPlanner planner = new ShardPlanner(ScenarioDurations.read(shardHistory));
+        Map<String, Integer> planned = planner.plan(keys, shardTotal);
+        for (int shard = 1; shard <= shardTotal; shard++) {
+            int index = shard;
+            long count = planned.values().stream().filter(s -> s == index).count();
+            Duration estimate = planned.entrySet().stream().filter(e -> e.getValue() == index)
+                    .map(e -> planner.estimate(e.getKey())).reduce(Duration.ZERO, Duration::plus);
+            logger.info("Shard {}/{}: {} scenario(s), estimated {}s{}", shard, shardTotal, count,
+                    estimate.toSeconds(), shard == shardIndex ? " (this shard)" : "");
+        }
+        plannedKeys = keys;
+        assignment = planned;
+    }
+
+    private static String setting(String key, String defaultValue) {
+        String value = System.getProperty(key, System.getenv(key.toUpperCase(Locale.ROOT).replace('.', '_')));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
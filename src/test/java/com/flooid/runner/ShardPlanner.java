@@ -0,0 +1,68 @@
+package com.flooid.runner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits scenarios into balanced shards by expected duration: scenarios are handed out longest first, each to the
+ * shard with the least expected work so far. Scenarios without history are expected to take the median known
+ * duration. The plan depends only on its inputs, so every shard computes the same plan independently.
+ */
+public class ShardPlanner {
+
+    static final Duration DEFAULT_ESTIMATE = Duration.ofSeconds(5);
+
+    private final Map<String, Duration> history;
+
+    public ShardPlanner(Map<String, Duration> history) {
+        this.history = history;
+    }
+
+    /**
+     * @param keys   The scenario keys to distribute.
+     * @param shards The number of shards.
+     * @return The shard, from 1 to {@code shards}, of every key.
+     */
+    public Map<String, Integer> plan(Collection<String> keys, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard total must be at least 1 but was " + shards);
+        }
+        List<String> ordered = new ArrayList<>(keys);
+        ordered.sort(Comparator.comparing(this::estimate).reversed().thenComparing(Comparator.naturalOrder()));
+        long[] load = new long[shards];
+        Map<String, Integer> assignment = new HashMap<>();
+        for (String key : ordered) {
+            int lightest = 0;
+            for (int shard = 1; shard < shards; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            load[lightest] += estimate(key).toNanos();
+            assignment.put(key, lightest + 1);
+        }
+        return assignment;
+    }
+
+    /**
+     * @return The expected duration of a scenario: its historical duration, or the median of all known durations.
+     */
+    public Duration estimate(String key) {
+        Duration known = history.get(key);
+        return known != null ? known : fallbackEstimate();
+    }
+
+    private Duration fallbackEstimate() {
+        if (history.isEmpty()) {
+            return DEFAULT_ESTIMATE;
+        }
+        List<Duration> durations = new ArrayList<>(history.values());
+        durations.sort(Comparator.naturalOrder());
+        return durations.get(durations.size() / 2);
+    }
+}
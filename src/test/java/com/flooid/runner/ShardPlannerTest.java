@@ -0,0 +1,65 @@
+package com.flooid.runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ShardPlannerTest {
+
+    @Test
+    void handsOutLongestScenariosFirstToTheLightestShard() {
+        ShardPlanner planner = new ShardPlanner(Map.of(
+                "a", Duration.ofSeconds(10),
+                "b", Duration.ofSeconds(7),
+                "c", Duration.ofSeconds(5),
+                "d", Duration.ofSeconds(3),
+                "e", Duration.ofSeconds(2)));
+
+        Map<String, Integer> plan = planner.plan(List.of("e", "d", "c", "b", "a"), 2);
+
+        // a:10 -> 1, b:7 -> 2, c:5 -> 2 (12), d:3 -> 1 (13), e:2 -> 2 (14)
+        assertEquals(Map.of("a", 1, "b", 2, "c", 2, "d", 1, "e", 2), plan);
+    }
+
+    @Test
+    void breaksTiesByKeySoEveryShardComputesTheSamePlan() {
+        ShardPlanner planner = new ShardPlanner(Map.of());
+
+        Map<String, Integer> plan = planner.plan(List.of("d", "b", "c", "a"), 2);
+
+        assertEquals(Map.of("a", 1, "b", 2, "c", 1, "d", 2), plan);
+    }
+
+    @Test
+    void balancesScenariosShorterThanAMillisecond() {
+        ShardPlanner planner = new ShardPlanner(Map.of(
+                "a", Duration.ofNanos(5),
+                "b", Duration.ofNanos(5),
+                "c", Duration.ofNanos(5),
+                "d", Duration.ofNanos(5)));
+
+        Map<String, Integer> plan = planner.plan(List.of("a", "b", "c", "d"), 2);
+
+        assertEquals(2, plan.values().stream().filter(shard -> shard == 1).count());
+    }
+
+    @Test
+    void expectsScenariosWithoutHistoryToTakeTheMedianDuration() {
+        ShardPlanner planner = new ShardPlanner(Map.of(
+                "a", Duration.ofSeconds(1),
+                "b", Duration.ofSeconds(3),
+                "c", Duration.ofSeconds(9)));
+
+        assertEquals(Duration.ofSeconds(9), planner.estimate("c"));
+        assertEquals(Duration.ofSeconds(3), planner.estimate("new"));
+    }
+
+    @Test
+    void fallsBackToTheDefaultEstimateWithoutHistory() {
+        assertEquals(ShardPlanner.DEFAULT_ESTIMATE, new ShardPlanner(Map.of()).estimate("new"));
+    }
+}
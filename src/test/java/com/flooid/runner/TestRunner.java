@@ -1,42 +1,18 @@
 package com.flooid.runner;
 
-import io.cucumber.junit.Cucumber;
-import io.cucumber.junit.CucumberOptions;
-import org.junit.AfterClass;
-import org.junit.BeforeClass;
-import org.junit.runner.RunWith;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.junit.platform.suite.api.IncludeEngines;
+import org.junit.platform.suite.api.SelectClasspathResource;
+import org.junit.platform.suite.api.Suite;
 
-@RunWith(Cucumber.class)
-@CucumberOptions(
-        features = {"src/test/resources/features"},
-        glue = {"com/flooid/stepDefinitions"},
-        plugin = {"json:target/cucumber-reports/cucumber-json-reports/cucumber.json",
-                "junit:target/cucumber-reports/cucumber-junit-reports/cucumberJunit.xml",
-                "html:target/cucumber-reports/cucumber-html-report.html"
-        },
-        dryRun = false,
-        monochrome = true,
-        tags = "@flooidFT and not @wip"
-)
-
-public class TestRunner {  // Renamed the class to include 'Test'
-
-    private static long duration;
-    private static final Logger log = LoggerFactory.getLogger(TestRunner.class);
-
-    @BeforeClass
-    public static void before() {
-        duration = System.currentTimeMillis();
-        log.info("Thread Id  | Scenario Num       | Step Count");
-    }
-
-    @AfterClass
-    public static void after() {
-        duration = System.currentTimeMillis() - duration;
-        long seconds = (duration / 1000) % 60;
-        long minutes = (duration / 1000) / 60;
-        log.info("Total duration: {} minutes {} seconds", minutes, seconds);
-    }
+/**
+ * Runs the Cucumber features on the JUnit Platform. Glue, plugins, tags and parallel execution are configured in
+ * {@code junit-platform.properties}. With {@code -Dshard.total} and {@code -Dshard.index}, only one shard of the
+ * scenarios runs; see {@link ShardFilter}. Scenario order and threads are chosen by {@link SchedulingCucumberEngine}.
+ * <p>
+ * Surefire finds this class by name: the acceptance test execution includes every class named {@code *Runner}.
+ */
+@Suite
+@IncludeEngines(SchedulingCucumberEngine.ENGINE_ID)
+@SelectClasspathResource("features")
+public class TestRunner {
 }
@@ -0,0 +1,190 @@
+package com.flooid.runner;
+
+import org.junit.platform.commons.JUnitException;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.Node.ExecutionMode;
+import org.junit.platform.engine.support.hierarchical.ResourceLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor service starting a thread for every concurrent test task instead of handing tasks to a fixed pool: with
+ * virtual threads, a scenario blocked on the grid costs no platform thread, so the only limit on concurrency is the
+ * number of permits, normally the number of sessions the grid can hold. A task holds a permit while it runs its own
+ * code and hands it back while it waits for its children, so features never take the place of scenarios.
+ * <p>
+ * Virtual threads need a Java 21 runtime. They are looked up through reflection so the test sources still compile
+ * for Java 11; on an older runtime, platform threads are started instead, with the same permits.
+ */
+class VirtualThreadExecutorService implements HierarchicalTestExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadExecutorService.class);
+    private static final String THREAD_NAME_PREFIX = "scenario-";
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+    private final ThreadLocal<Boolean> holdsPermit = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    VirtualThreadExecutorService(int maxConcurrentTasks) {
+        this(threadFactory(), maxConcurrentTasks);
+    }
+
+    VirtualThreadExecutorService(ThreadFactory threadFactory, int maxConcurrentTasks) {
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("Concurrent tasks must be at least 1 but was " + maxConcurrentTasks);
+        }
+        this.threadFactory = threadFactory;
+        // Fair, so tasks start in the order they were handed out, e.g. longest scenarios first
+        this.permits = new Semaphore(maxConcurrentTasks, true);
+    }
+
+    /**
+     * Returns a factory for virtual threads when the runtime supports them, otherwise for daemon platform threads.
+     */
+    static ThreadFactory threadFactory() {
+        if (Runtime.version().feature() >= 21) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Could not create virtual threads, falling back to platform threads", e);
+            }
+        } else {
+            logger.warn("Virtual threads need Java 21 but the runtime is Java {}, falling back to platform threads",
+                    Runtime.version().feature());
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public Future<Void> submit(TestTask testTask) {
+        execute(testTask);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void invokeAll(List<? extends TestTask> testTasks) {
+        boolean handedBack = holdsPermit.get();
+        if (handedBack) {
+            holdsPermit.set(Boolean.FALSE);
+            permits.release();
+        }
+        try {
+            List<Worker> workers = new ArrayList<>();
+            for (TestTask testTask : testTasks) {
+                if (testTask.getExecutionMode() == ExecutionMode.CONCURRENT) {
+                    Worker worker = new Worker(testTask);
+                    worker.thread.start();
+                    workers.add(worker);
+                }
+            }
+            for (TestTask testTask : testTasks) {
+                if (testTask.getExecutionMode() == ExecutionMode.SAME_THREAD) {
+                    execute(testTask);
+                }
+            }
+            Throwable failure = null;
+            for (Worker worker : workers) {
+                Throwable workerFailure = worker.join();
+                if (failure == null) {
+                    failure = workerFailure;
+                } else if (workerFailure != null) {
+                    failure.addSuppressed(workerFailure);
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new JUnitException("Test task failed", failure);
+            }
+        } finally {
+            if (handedBack) {
+                acquirePermit();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Every thread was joined by the invokeAll call that started it
+    }
+
+    private void execute(TestTask testTask) {
+        // The lock is taken first: a task waiting for it must not hold a permit the lock's holder needs
+        try (ResourceLock lock = testTask.getResourceLock().acquire()) {
+            acquirePermit();
+            try {
+                testTask.execute();
+            } finally {
+                // Not held when taking it back after the children were interrupted
+                if (holdsPermit.get()) {
+                    holdsPermit.set(Boolean.FALSE);
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JUnitException("Interrupted while waiting for the resource lock of a test task", e);
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JUnitException("Interrupted while waiting to run a test task", e);
+        }
+        holdsPermit.set(Boolean.TRUE);
+    }
+
+    /**
+     * A task running on its own thread, with whatever it threw.
+     */
+    private class Worker {
+        private final Thread thread;
+        private volatile Throwable failure;
+
+        private Worker(TestTask testTask) {
+            thread = threadFactory.newThread(() -> {
+                try {
+                    execute(testTask);
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            });
+        }
+
+        /**
+         * Waits for the task to finish.
+         *
+         * @return What the task threw, or null if it completed normally.
+         */
+        private Throwable join() {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JUnitException("Interrupted while waiting for a test task", e);
+            }
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.flooid.runner.fixture;
+
+import io.cucumber.java.en.Given;
+import org.opentest4j.TestAbortedException;
+
+/**
+ * Glue of the retry listener test features in {@code retry-fixtures}: every step ends its scenario with another
+ * outcome.
+ */
+public class OutcomeSteps {
+
+    @Given("the scenario passes")
+    public void theScenarioPasses() {
+    }
+
+    @Given("the scenario fails")
+    public void theScenarioFails() {
+        throw new AssertionError("The scenario fails");
+    }
+
+    @Given("the scenario is aborted")
+    public void theScenarioIsAborted() {
+        throw new TestAbortedException("The scenario is aborted");
+    }
+}
@@ -0,0 +1,43 @@
+package com.flooid.runner.fixture;
+
+import io.cucumber.java.en.Given;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Glue of the engine test features in {@code engine-fixtures}: every step records the thread it runs on and how many
+ * steps were running at the same time.
+ */
+public class ThreadRecordingSteps {
+
+    public static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+    public static final Set<String> VIRTUAL_THREADS = ConcurrentHashMap.newKeySet();
+    public static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    public static void reset() {
+        THREADS.clear();
+        VIRTUAL_THREADS.clear();
+        MAX_RUNNING.set(0);
+    }
+
+    @Given("the scenario records its thread")
+    public void theScenarioRecordsItsThread() throws ReflectiveOperationException {
+        MAX_RUNNING.accumulateAndGet(RUNNING.incrementAndGet(), Math::max);
+        THREADS.add(Thread.currentThread().getName());
+        if (Runtime.version().feature() >= 21 && (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())) {
+            VIRTUAL_THREADS.add(Thread.currentThread().getName());
+        }
+        try {
+            // Long enough for the other scenarios to start if they are allowed to
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recording the scenario thread", e);
+        } finally {
+            RUNNING.decrementAndGet();
+        }
+    }
+}
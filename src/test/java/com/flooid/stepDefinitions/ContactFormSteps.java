@@ -73,6 +73,7 @@
 package com.flooid.stepDefinitions;
 
 import com.flooid.engine.TestContext;
+import com.flooid.pages.ContactFormState;
 import com.flooid.pages.ContactPage;
 import com.flooid.pages.NewPage;
 import io.cucumber.java.en.Given;
@@ -81,13 +82,14 @@ import io.cucumber.java.en.When;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ContactFormSteps {
 
     private final TestContext testContext;
     private static final Logger logger = LoggerFactory.getLogger(ContactFormSteps.class);
+    private ContactPage contactPage;
 
     public ContactFormSteps(TestContext testContext) {
         this.testContext = testContext;
@@ -96,10 +98,18 @@ public class ContactFormSteps {
     @Given("I am on the Flooid contact page")
     public void iAmOnTheFlooidContactPage() {
         logger.info("Navigating to the Flooid contact page.");
-        new NewPage(testContext.getDriver()).navigateToContactUsPage();
+        contactPage = new NewPage(testContext.getDriver()).navigateToContactUsPage();
         logger.info("Successfully navigated to the Flooid contact page.");
     }
 
+    // The page object is kept for the whole scenario so its cached element handles are reused across steps
+    private ContactPage getContactPage() {
+        if (contactPage == null) {
+            contactPage = new ContactPage(testContext.getDriver());
+        }
+        return contactPage;
+    }
+
     @When("I enter an invalid email address {string}")
     public void iEnterAnInvalidEmailAddress(String invalidEmail) {
         logger.info("Entering invalid email address: {}", invalidEmail);
@@ -108,7 +118,7 @@ public class ContactFormSteps {
 
     private void enterEmailAddress(String emailAddress) {
         logger.debug("Attempting to enter email address: {}", emailAddress);
-        new ContactPage(testContext.getDriver()).enterEmailAddress(emailAddress);
+        getContactPage().enterEmailAddress(emailAddress);
         logger.debug("Email address entered: {}", emailAddress);
     }
 
@@ -121,8 +131,10 @@ public class ContactFormSteps {
     @Then("I should see an error message {string}")
     public void iShouldSeeAnErrorMessage(String expectedErrorMessage) {
         logger.info("Checking for expected error message: {}", expectedErrorMessage);
-        String actualErrorMessage = new ContactPage(testContext.getDriver()).readErrorMessageDisplayedForInvalidEmailAddress();
-        assertEquals("The expected Error message: " + expectedErrorMessage + " is not displayed", expectedErrorMessage, actualErrorMessage);
+        // Wait for the message, then read the whole form state in one round trip for the assertion and its report
+        getContactPage().isErrorMessageDisplayed();
+        ContactFormState state = getContactPage().readValidationState();
+        assertEquals(expectedErrorMessage, state.getErrorMessage(), "The expected Error message: " + expectedErrorMessage + " is not displayed, form state: " + state);
         logger.info("Error message validation passed: {}", expectedErrorMessage);
     }
 
@@ -130,10 +142,12 @@ public class ContactFormSteps {
     public void iShouldNotSeeAnErrorMessage(String errorMessage) {
         logger.info("Checking that error message is not displayed: {}", errorMessage);
 
-        // Use the method `isNotDisplayed` to ensure the error message is not present
-        boolean isErrorMessageNotDisplayed = new ContactPage(testContext.getDriver()).isErrorMessageNotDisplayed();
+        // Use the method `isNotDisplayed` to wait for the error message to go away, then read the form state once
+        boolean isErrorMessageNotDisplayed = getContactPage().isErrorMessageNotDisplayed();
+        ContactFormState state = getContactPage().readValidationState();
 
-        assertTrue("The error message: " + errorMessage + " was unexpectedly displayed.", isErrorMessageNotDisplayed);
+        assertTrue(isErrorMessageNotDisplayed && !state.isErrorMessageDisplayed(errorMessage),
+                "The error message: " + errorMessage + " was unexpectedly displayed, form state: " + state);
         logger.info("Error message is not displayed as expected.");
     }
 
@@ -1,24 +1,69 @@
 package com.flooid.stepDefinitions;
 
+import com.flooid.engine.ResultCache;
+import com.flooid.engine.RunMetrics;
 import com.flooid.engine.TestContext;
 import com.flooid.utils.Screenshot;
+import com.flooid.utils.ScreenshotWriter;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Scenario;
+import io.cucumber.java.Status;
+import org.opentest4j.TestAbortedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Optional;
 
 public class GlobalHooks {
     private static final Logger logger = LoggerFactory.getLogger(GlobalHooks.class);
+    private static long duration;
     private final TestContext testContext;
 
     public GlobalHooks(TestContext testContext) {
         this.testContext = testContext;
     }
 
+    @BeforeAll
+    public static void beforeAll() {
+        duration = System.currentTimeMillis();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        duration = System.currentTimeMillis() - duration;
+        long seconds = (duration / 1000) % 60;
+        long minutes = (duration / 1000) / 60;
+        logger.info("Total duration: {} minutes {} seconds", minutes, seconds);
+        ScreenshotWriter.getInstance().flush(Duration.ofSeconds(30));
+        ResultCache.getInstance().save();
+        RunMetrics.getInstance().logSummary();
+    }
+
+    /**
+     * In incremental mode, skips a scenario that passed before with exactly the same inputs. Runs before every other
+     * hook, so no browser is started for it.
+     */
+    @Before(order = 0)
+    public void skipIfCached(Scenario scenario) {
+        if (!ResultCache.getInstance().isEnabled()) {
+            return;
+        }
+        Optional<Instant> cachedPass = ResultCache.getInstance().findCachedPass(scenario.getUri(), scenario.getLine());
+        if (cachedPass.isPresent()) {
+            logger.info("Skipping scenario with unchanged inputs: {}", scenario.getName());
+            RunMetrics.getInstance().increment("scenarios.skipped_cached");
+            scenario.log("skipped-cached: inputs unchanged since the pass at " + cachedPass.get());
+            throw new TestAbortedException("skipped-cached: inputs unchanged since the pass at " + cachedPass.get());
+        }
+    }
+
     @Before
     public void before(Scenario scenario) {
         logger.info("Starting scenario: {}", scenario.getName());
@@ -28,6 +73,10 @@ public class GlobalHooks {
     @After
     public void tearDown(Scenario scenario) {
         try {
+            if (scenario.getStatus() == Status.SKIPPED) {
+                return;
+            }
+            ResultCache.getInstance().recordResult(scenario.getUri(), scenario.getLine(), scenario.getStatus() == Status.PASSED);
             if (scenario.isFailed()) {
                 String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
                 String screenshotName = scenario.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp;
@@ -44,7 +93,7 @@ public class GlobalHooks {
             }
         } finally {
             testContext.quitDriver();
-            logger.info("Driver quit for scenario: {}", scenario.getName());
+            logger.info("Driver released for scenario: {}", scenario.getName());
         }
     }
 }
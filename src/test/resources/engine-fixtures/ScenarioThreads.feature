@@ -0,0 +1,14 @@
+Feature: Scenario threads
+  Scenarios run by the engine tests, recording the thread they run on.
+
+  Scenario Outline: Scenario <number> records its thread
+    Given the scenario records its thread
+
+    Examples:
+      | number |
+      | 1      |
+      | 2      |
+      | 3      |
+      | 4      |
+      | 5      |
+      | 6      |
@@ -0,0 +1,11 @@
+Feature: Scenario outcomes
+  Scenarios run by the retry listener tests, one for every outcome.
+
+  Scenario: Passing scenario
+    Given the scenario passes
+
+  Scenario: Failing scenario
+    Given the scenario fails
+
+  Scenario: Aborted scenario
+    Given the scenario is aborted